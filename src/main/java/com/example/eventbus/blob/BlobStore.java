@@ -0,0 +1,25 @@
+package com.example.eventbus.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+// Content-addressed storage for event payloads too large to keep in workers_event: a blob is stored and looked up by
+// the hex SHA-256 of its bytes, so the reference on the event doubles as its integrity hash and identical payloads are
+// stored once
+public interface BlobStore {
+
+    // Returns the reference; storing content that is already present only marks it as used again
+    String put(byte[] content) throws IOException;
+
+    InputStream open(String reference) throws IOException;
+
+    // Read-only view of the whole blob, mapped rather than copied where the store allows it
+    ByteBuffer map(String reference) throws IOException;
+
+    boolean exists(String reference);
+
+    // Skips blobs stored or reused after the given instant, which may belong to events that are not committed yet
+    boolean deleteIfUnusedSince(String reference, Instant unusedSince) throws IOException;
+}
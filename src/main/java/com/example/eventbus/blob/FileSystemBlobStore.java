@@ -0,0 +1,139 @@
+package com.example.eventbus.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Keeps each blob in its own file under <directory>/ab/cd/<reference>. Every node that publishes or consumes offloaded
+// events must see the same directory, so multi-node deployments point it at shared storage
+@Component
+@ConditionalOnProperty(name = "eventbus.blob.type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path directory;
+
+    public FileSystemBlobStore(@Value("${eventbus.blob.directory:${java.io.tmpdir}/eventbus-blobs}") Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create blob directory " + directory, e);
+        }
+    }
+
+    @Override
+    public String put(byte[] content) throws IOException {
+        String reference = HEX.formatHex(sha256().digest(content));
+        Path target = path(reference);
+        try {
+            // Touching the existing file is what protects it from deleteIfUnusedSince; if it was just moved aside for
+            // deletion the touch fails and the blob is written again
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return reference;
+        } catch (NoSuchFileException e) {
+            // Not stored yet, or being deleted
+        }
+        Files.createDirectories(target.getParent());
+        // Written to a temporary file and moved into place, so readers never see a partial blob under its reference
+        Path temporary = Files.createTempFile(target.getParent(), reference, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another publisher stored the same content first
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return reference;
+    }
+
+    @Override
+    public InputStream open(String reference) throws IOException {
+        return Files.newInputStream(path(reference));
+    }
+
+    @Override
+    public ByteBuffer map(String reference) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(reference), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public boolean exists(String reference) {
+        return Files.exists(path(reference));
+    }
+
+    // The blob is moved out of its shared path before its modification time is checked a second time: a put that touched
+    // it before the move shows up in that check and the blob is moved back, and a put after the move no longer finds it
+    // and writes it again. Readers may miss the blob while it is moved aside, which they treat as a retryable failure.
+    @Override
+    public boolean deleteIfUnusedSince(String reference, Instant unusedSince) throws IOException {
+        Path path = path(reference);
+        Path doomed = path.resolveSibling(reference + "." + UUID.randomUUID() + ".deleting");
+        try {
+            if (Files.getLastModifiedTime(path).toInstant().isAfter(unusedSince)) {
+                return false;
+            }
+            Files.move(path, doomed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(doomed).toInstant().isAfter(unusedSince)) {
+            restore(doomed, path);
+            return false;
+        }
+        Files.delete(doomed);
+        return true;
+    }
+
+    // A put may have written the same content again meanwhile; either copy is the blob
+    private static void restore(Path doomed, Path path) throws IOException {
+        try {
+            Files.move(doomed, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.delete(doomed);
+        }
+    }
+
+    private Path path(String reference) {
+        if (reference.length() != 64 || !reference.chars().allMatch(HexFormat::isHexDigit)) {
+            throw new IllegalArgumentException("Invalid blob reference '" + reference + "'");
+        }
+        return directory.resolve(reference.substring(0, 2)).resolve(reference.substring(2, 4)).resolve(reference);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.eventbus.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Compresses what another codec writes; the delegate streams straight into the deflater
+public class DeflatePayloadCodec implements EventPayloadCodec {
+
+    public static final String SUFFIX = "+deflate";
+
+    private final EventPayloadCodec delegate;
+
+    public DeflatePayloadCodec(EventPayloadCodec delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId() + SUFFIX;
+    }
+
+    @Override
+    public void encode(Object payload, OutputStream out) throws IOException {
+        Deflater deflater = new Deflater();
+        try {
+            DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater);
+            delegate.encode(payload, deflated);
+            deflated.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public <T> T decode(InputStream in, Class<T> type) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            return delegate.decode(new InflaterInputStream(in, inflater), type);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.eventbus.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Serializes event payloads for workers_event. Implementations are Spring beans; the id is stored with every event, so
+// it must keep meaning the same format for as long as such events exist
+public interface EventPayloadCodec {
+
+    String getId();
+
+    // Must leave the stream open, so that wrapping codecs can finish it
+    void encode(Object payload, OutputStream out) throws IOException;
+
+    <T> T decode(InputStream in, Class<T> type) throws IOException;
+}
@@ -0,0 +1,140 @@
+package com.example.eventbus.codec;
+
+import com.example.eventbus.blob.BlobStore;
+import com.example.eventbus.domain.WorkersEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Writes each event with the codec configured for its type (eventbus.codec.event-types, e.g.
+// "ftp.file.discovered:smile+deflate") and reads it with the codec recorded on the event, so events written before a
+// type switched codecs stay readable. Appending "+deflate" to any codec id compresses its output. The json codec keeps
+// writing the JSON event_data column; every other codec writes event_payload. Encoded payloads larger than
+// eventbus.blob.threshold-bytes are offloaded to the BlobStore and the event keeps only the blob reference.
+@Component
+public class EventPayloadCodecs {
+
+    public static final String JSON = "json";
+
+    private final Map<String, EventPayloadCodec> codecs = new ConcurrentHashMap<>();
+    private final Map<String, EventPayloadCodec> codecsByEventType = new HashMap<>();
+    private final EventPayloadCodec defaultCodec;
+    private final BlobStore blobStore;
+    private final int offloadThreshold;
+
+    public EventPayloadCodecs(List<EventPayloadCodec> codecs,
+                              BlobStore blobStore,
+                              @Value("${eventbus.codec.default:" + JSON + "}") String defaultCodecId,
+                              @Value("${eventbus.codec.event-types:}") String eventTypeCodecs,
+                              @Value("${eventbus.blob.threshold-bytes:1048576}") int offloadThreshold) {
+        this.blobStore = blobStore;
+        this.offloadThreshold = offloadThreshold;
+        codecs.forEach(codec -> this.codecs.put(codec.getId(), codec));
+        this.defaultCodec = codec(defaultCodecId);
+        for (String entry : eventTypeCodecs.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected eventType:codec in eventbus.codec.event-types, got '"
+                    + entry.trim() + "'");
+            }
+            codecsByEventType.put(entry.substring(0, separator).trim(), codec(entry.substring(separator + 1).trim()));
+        }
+    }
+
+    public void write(WorkersEvent event, Object payload) {
+        EventPayloadCodec codec = codecsByEventType.getOrDefault(event.getEventType(), defaultCodec);
+        event.setPayloadCodec(codec.getId());
+        event.setEventData(null);
+        event.setEventPayload(null);
+        event.setPayloadRef(null);
+        if (payload == null) {
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            codec.encode(payload, out);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to serialize event data", e);
+        }
+        if (offloadThreshold > 0 && out.size() > offloadThreshold) {
+            try {
+                event.setPayloadRef(blobStore.put(out.toByteArray()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to store event payload", e);
+            }
+        } else if (JSON.equals(codec.getId())) {
+            event.setEventData(out.toString(StandardCharsets.UTF_8));
+        } else {
+            event.setEventPayload(out.toByteArray());
+        }
+    }
+
+    // Use JsonNode.class for untyped access. Payloads that do not decode are rejected with IllegalArgumentException;
+    // failing to read an offloaded payload from the blob store is an UncheckedIOException, which may succeed on retry
+    public <T> T read(WorkersEvent event, Class<T> type) {
+        if (!hasPayload(event)) {
+            return null;
+        }
+        try (InputStream in = openPayload(event)) {
+            return codec(event.getPayloadCodec() != null ? event.getPayloadCodec() : JSON).decode(in, type);
+        } catch (JsonProcessingException | ZipException e) {
+            throw new IllegalArgumentException("Invalid event payload", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read event payload", e);
+        }
+    }
+
+    public boolean hasPayload(WorkersEvent event) {
+        return event.getPayloadRef() != null || event.getEventPayload() != null || event.getEventData() != null;
+    }
+
+    // The encoded payload as written by the event's codec; offloaded payloads are only read from the blob store here,
+    // so consumers that stream it never hold the whole payload in memory
+    public InputStream openPayload(WorkersEvent event) throws IOException {
+        if (event.getPayloadRef() != null) {
+            return blobStore.open(event.getPayloadRef());
+        }
+        return new ByteArrayInputStream(inlinePayload(event));
+    }
+
+    public ByteBuffer mapPayload(WorkersEvent event) throws IOException {
+        if (event.getPayloadRef() != null) {
+            return blobStore.map(event.getPayloadRef());
+        }
+        return ByteBuffer.wrap(inlinePayload(event)).asReadOnlyBuffer();
+    }
+
+    private static byte[] inlinePayload(WorkersEvent event) {
+        if (event.getEventPayload() != null) {
+            return event.getEventPayload();
+        }
+        return event.getEventData() != null ? event.getEventData().getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private EventPayloadCodec codec(String id) {
+        EventPayloadCodec codec = codecs.get(id);
+        if (codec != null) {
+            return codec;
+        }
+        if (id.endsWith(DeflatePayloadCodec.SUFFIX)) {
+            EventPayloadCodec delegate = codec(id.substring(0, id.length() - DeflatePayloadCodec.SUFFIX.length()));
+            return codecs.computeIfAbsent(id, key -> new DeflatePayloadCodec(delegate));
+        }
+        throw new IllegalArgumentException("Unknown event payload codec '" + id + "'");
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.eventbus.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Any Jackson data format: JSON, or Smile/CBOR through a mapper copied onto their factories
+public class JacksonPayloadCodec implements EventPayloadCodec {
+
+    private final String id;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public JacksonPayloadCodec(String id, ObjectMapper objectMapper) {
+        this.id = id;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void encode(Object payload, OutputStream out) throws IOException {
+        writer.writeValue(out, payload);
+    }
+
+    @Override
+    public <T> T decode(InputStream in, Class<T> type) throws IOException {
+        return objectMapper.readValue(in, type);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.eventbus.config;
 
+import com.example.eventbus.codec.EventPayloadCodecs;
 import com.example.eventbus.domain.SystemWorker;
 import com.example.eventbus.domain.repository.SystemWorkerRepository;
 import com.example.eventbus.service.IEventBusService;
@@ -9,12 +10,20 @@ import com.example.eventbus.worker.consumer.CsvProcessorConsumer;
 import com.example.eventbus.worker.producer.FtpDownloadProducer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class EventBusConfiguration {
 
+    // The project has no spring-boot-starter-json, so JacksonAutoConfiguration never registers a mapper
+    @Bean
+    @ConditionalOnMissingBean
+    public ObjectMapper objectMapper() {
+        return new ObjectMapper().findAndRegisterModules();
+    }
+
     @Bean
     public FtpDownloadProducer ftpDownloadProducer(SystemWorkerRepository repository,
                                                    IEventBusService eventBusService,
@@ -28,10 +37,10 @@ public class EventBusConfiguration {
     public CsvProcessorConsumer csvProcessorConsumer(SystemWorkerRepository repository,
                                                      IEventBusService eventBusService,
                                                      IIdempotencyService idempotencyService,
-                                                     ObjectMapper objectMapper) {
+                                                     EventPayloadCodecs payloadCodecs) {
         SystemWorker worker = ensureWorker(repository, "csv-processor-consumer",
             CsvProcessorConsumer.class.getName(), "Processes CSV files produced by FTP scans");
-        return new CsvProcessorConsumer(worker, eventBusService, idempotencyService, objectMapper);
+        return new CsvProcessorConsumer(worker, eventBusService, idempotencyService, payloadCodecs);
     }
 
     @Bean
@@ -0,0 +1,30 @@
+package com.example.eventbus.config;
+
+import com.example.eventbus.codec.EventPayloadCodec;
+import com.example.eventbus.codec.EventPayloadCodecs;
+import com.example.eventbus.codec.JacksonPayloadCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// The binary formats reuse the application's mapper settings and modules, so a payload decodes the same in any format
+@Configuration
+public class PayloadCodecConfiguration {
+
+    @Bean
+    public EventPayloadCodec jsonPayloadCodec(ObjectMapper objectMapper) {
+        return new JacksonPayloadCodec(EventPayloadCodecs.JSON, objectMapper);
+    }
+
+    @Bean
+    public EventPayloadCodec smilePayloadCodec(ObjectMapper objectMapper) {
+        return new JacksonPayloadCodec("smile", objectMapper.copyWith(new SmileFactory()));
+    }
+
+    @Bean
+    public EventPayloadCodec cborPayloadCodec(ObjectMapper objectMapper) {
+        return new JacksonPayloadCodec("cbor", objectMapper.copyWith(new CBORFactory()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.eventbus.config;
+
+import com.example.eventbus.domain.id.EventIdGenerator;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfiguration {
+
+    private static final String EVENT_UUID_TYPE_PLACEHOLDER = "event_uuid_type";
+    private static final String BINARY_UUID_COLUMN = "binary(16)";
+
+    @Bean
+    public HibernatePropertiesCustomizer eventIdentityPropertiesCustomizer(
+            @Value("${eventbus.id.strategy:" + EventIdGenerator.TIME_ORDERED + "}") String strategy,
+            @Value("${eventbus.id.node-id:}") String nodeId,
+            @Value("${eventbus.uuid.storage:binary}") String uuidStorage) {
+        return properties -> {
+            properties.put(EventIdGenerator.STRATEGY_SETTING, strategy);
+            if (!nodeId.isBlank()) {
+                properties.put(EventIdGenerator.NODE_ID_SETTING, nodeId);
+            }
+            properties.put(AvailableSettings.PREFERRED_UUID_JDBC_TYPE, uuidJdbcType(uuidStorage));
+        };
+    }
+
+    // V11 gives the event_uuid columns this type, so a new database matches what Hibernate writes; an explicit
+    // spring.flyway.placeholders.event_uuid_type still wins
+    @Bean
+    public static BeanPostProcessor eventUuidFlywayPlaceholder(@Value("${eventbus.uuid.storage:binary}") String uuidStorage) {
+        String columnType = uuidColumnType(uuidStorage);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof FlywayProperties flyway) {
+                    flyway.getPlaceholders().putIfAbsent(EVENT_UUID_TYPE_PLACEHOLDER, columnType);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static String uuidJdbcType(String uuidStorage) {
+        return uuidColumnType(uuidStorage).equals(BINARY_UUID_COLUMN) ? "BINARY" : "CHAR";
+    }
+
+    private static String uuidColumnType(String uuidStorage) {
+        return switch (uuidStorage) {
+            case "binary" -> BINARY_UUID_COLUMN;
+            case "char" -> "char(36)";
+            default -> throw new IllegalArgumentException(
+                "Unknown eventbus.uuid.storage '" + uuidStorage + "', expected binary or char");
+        };
+    }
+}
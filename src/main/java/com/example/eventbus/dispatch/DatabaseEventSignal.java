@@ -0,0 +1,37 @@
+package com.example.eventbus.dispatch;
+
+import com.example.eventbus.domain.repository.EventTypeSignalRepository;
+import java.time.Instant;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@ConditionalOnProperty(name = "eventbus.signal.type", havingValue = "database", matchIfMissing = true)
+public class DatabaseEventSignal implements EventSignal {
+
+    private final EventTypeSignalRepository eventTypeSignalRepository;
+
+    public DatabaseEventSignal(EventTypeSignalRepository eventTypeSignalRepository) {
+        this.eventTypeSignalRepository = eventTypeSignalRepository;
+    }
+
+    // Runs in its own short transaction after the events committed, so the hot per-type row is never locked for the
+    // length of a publishing transaction and a reader that sees the new sequence also sees the events
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void signal(Set<String> eventTypes) {
+        Instant now = Instant.now();
+        for (String eventType : eventTypes.stream().sorted().toList()) {
+            eventTypeSignalRepository.increment(eventType, now);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long currentSequence(String eventType) {
+        return eventTypeSignalRepository.findPublishedSequence(eventType).orElse(0L);
+    }
+}
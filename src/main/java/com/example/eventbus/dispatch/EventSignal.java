@@ -0,0 +1,13 @@
+package com.example.eventbus.dispatch;
+
+import java.util.Set;
+
+// Tells poll loops on every node that an event type has new events, so they only run the claim query when the
+// sequence they last saw has moved
+public interface EventSignal {
+
+    // Called once the publishing transaction has committed
+    void signal(Set<String> eventTypes);
+
+    long currentSequence(String eventType);
+}
@@ -0,0 +1,183 @@
+package com.example.eventbus.dispatch;
+
+import com.example.eventbus.domain.WorkersEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Hands events committed on this node to local poll loops without waiting for a poll. Each event type has a fixed-size
+// ring that publishers append to without locking; every reader keeps its own position, so each subscriber sees every
+// entry. A reader that falls a full ring behind skips the overwritten entries, which the database claim still covers.
+// Slots are cleared once every reader has passed them and events whose inline payload exceeds max-payload-bytes are not
+// buffered at all, so the rings never pin more than buffer-size small events per type; skipped events are claimed and
+// loaded like those of other nodes.
+@Component
+public class LocalEventBuffer {
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final int ringSize;
+    private final int maxPayloadBytes;
+    private final boolean enabled;
+    private volatile Consumer<String> publishListener = eventType -> { };
+
+    public LocalEventBuffer(@Value("${eventbus.local-dispatch.buffer-size:1024}") int bufferSize,
+                            @Value("${eventbus.local-dispatch.max-payload-bytes:65536}") int maxPayloadBytes,
+                            @Value("${eventbus.local-dispatch.enabled:true}") boolean enabled) {
+        this.ringSize = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.enabled = enabled;
+    }
+
+    public void onPublish(Consumer<String> listener) {
+        this.publishListener = listener;
+    }
+
+    public void publish(List<WorkersEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        String lastEventType = null;
+        for (WorkersEvent event : events) {
+            if (payloadSize(event) <= maxPayloadBytes) {
+                ring(event.getEventType()).append(event);
+            }
+            if (lastEventType != null && !lastEventType.equals(event.getEventType())) {
+                publishListener.accept(lastEventType);
+            }
+            lastEventType = event.getEventType();
+        }
+        publishListener.accept(lastEventType);
+    }
+
+    public Reader reader(String eventType) {
+        return new Reader(ring(eventType));
+    }
+
+    // Entries still referenced by the ring of an event type
+    int buffered(String eventType) {
+        Ring ring = rings.get(eventType);
+        int buffered = 0;
+        for (int i = 0; ring != null && i < ring.slots.length(); i++) {
+            if (ring.slots.get(i) != null) {
+                buffered++;
+            }
+        }
+        return buffered;
+    }
+
+    private Ring ring(String eventType) {
+        return rings.computeIfAbsent(eventType, type -> new Ring(ringSize));
+    }
+
+    // Offloaded payloads are only a blob reference on the event
+    private static long payloadSize(WorkersEvent event) {
+        if (event.getEventPayload() != null) {
+            return event.getEventPayload().length;
+        }
+        return event.getEventData() != null ? event.getEventData().length() : 0;
+    }
+
+    public static final class Reader {
+
+        private final Ring ring;
+        // Only written by the owning poll loop; other readers read it to clear slots
+        private volatile long position;
+
+        private Reader(Ring ring) {
+            this.ring = ring;
+            // Registered before taking the head, so release never clears a slot past this reader's start
+            ring.readers.add(this);
+            this.position = ring.head.get();
+        }
+
+        // Not thread-safe: a reader belongs to a single poll loop
+        public List<WorkersEvent> drain() {
+            long head = ring.head.get();
+            if (position >= head) {
+                return Collections.emptyList();
+            }
+            long next = Math.max(position, head - ring.slots.length());
+            List<WorkersEvent> drained = new ArrayList<>((int) (head - next));
+            while (next < head) {
+                Entry entry = ring.slots.get(ring.index(next));
+                if (entry == null || entry.sequence < next) {
+                    // the publisher that took this sequence has not stored its entry yet
+                    break;
+                }
+                if (entry.sequence == next) {
+                    drained.add(entry.event);
+                }
+                next++;
+            }
+            position = next;
+            ring.release();
+            return drained;
+        }
+    }
+
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Entry> slots;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong released = new AtomicLong();
+        private final List<Reader> readers = new CopyOnWriteArrayList<>();
+        private final int mask;
+
+        private Ring(int size) {
+            this.slots = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        // Nobody would ever read the entry; a reader created later starts at the head anyway
+        private void append(WorkersEvent event) {
+            if (readers.isEmpty()) {
+                return;
+            }
+            long sequence = head.getAndIncrement();
+            slots.set(index(sequence), new Entry(sequence, event));
+        }
+
+        // Clears the slots below the slowest reader. A slot a publisher has already reused holds a newer sequence and
+        // is left alone, and only the reader that advances the watermark clears the slots it uncovered.
+        private void release() {
+            long passed = Long.MAX_VALUE;
+            for (Reader reader : readers) {
+                passed = Math.min(passed, reader.position);
+            }
+            long from = released.get();
+            if (passed <= from || !released.compareAndSet(from, passed)) {
+                return;
+            }
+            for (long sequence = Math.max(from, passed - slots.length()); sequence < passed; sequence++) {
+                int index = index(sequence);
+                Entry entry = slots.get(index);
+                if (entry != null && entry.sequence < passed) {
+                    slots.compareAndSet(index, entry, null);
+                }
+            }
+        }
+
+        private int index(long sequence) {
+            return (int) (sequence & mask);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long sequence;
+        private final WorkersEvent event;
+
+        private Entry(long sequence, WorkersEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.eventbus.dispatch;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// In-memory stand-in for tests and single-node setups; nodes sharing one JVM see each other's signals
+@Component
+@ConditionalOnProperty(name = "eventbus.signal.type", havingValue = "loopback")
+public class LoopbackEventSignal implements EventSignal {
+
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    @Override
+    public void signal(Set<String> eventTypes) {
+        eventTypes.forEach(eventType -> sequence(eventType).incrementAndGet());
+    }
+
+    @Override
+    public long currentSequence(String eventType) {
+        return sequence(eventType).get();
+    }
+
+    private AtomicLong sequence(String eventType) {
+        return sequences.computeIfAbsent(eventType, type -> new AtomicLong());
+    }
+}
@@ -1,31 +1,55 @@
 package com.example.eventbus.domain;
 
+import com.example.eventbus.domain.id.EventIdGenerator;
+import com.example.eventbus.domain.id.EventUuidConverter;
+import com.example.eventbus.domain.id.IdempotencyKeyConverter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import java.time.Instant;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
-@Table(name = "event_consumption")
+@Table(name = "event_consumption", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_event_consumption_event_consumer", columnNames = {"event_uuid", "consumer_worker_id"})
+}, indexes = {
+    @Index(name = "idx_event_consumption_delivery", columnList = "consumer_worker_id, event_type, status, next_attempt_at"),
+    @Index(name = "idx_event_consumption_lease", columnList = "status, lease_expires_at"),
+    @Index(name = "idx_event_consumption_worker_status", columnList = "consumer_worker_id, status"),
+    @Index(name = "uk_event_consumption_idempotency_key", columnList = "idempotency_key", unique = true)
+})
 public class EventConsumption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "event_consumption_id")
+    @GenericGenerator(name = "event_consumption_id", type = EventIdGenerator.class, parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "event_consumption_seq"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "100"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Long id;
 
     @Column(name = "event_uuid", nullable = false)
+    @Convert(converter = EventUuidConverter.class)
     private String eventUuid;
 
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "consumer_worker_id", nullable = false)
     private SystemWorker consumerWorker;
@@ -43,6 +67,15 @@ public class EventConsumption {
     @Column(name = "processing_started_at")
     private Instant processingStartedAt;
 
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
     @Column(name = "completed_at")
     private Instant completedAt;
 
@@ -55,7 +88,8 @@ public class EventConsumption {
     @Column(name = "error_stack_trace", columnDefinition = "TEXT")
     private String errorStackTrace;
 
-    @Column(name = "idempotency_key", unique = true)
+    @Column(name = "idempotency_key", length = 32)
+    @Convert(converter = IdempotencyKeyConverter.class)
     private String idempotencyKey;
 
     @Column(name = "result_hash")
@@ -92,6 +126,14 @@ public class EventConsumption {
         this.eventUuid = eventUuid;
     }
 
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
     public SystemWorker getConsumerWorker() {
         return consumerWorker;
     }
@@ -132,6 +174,30 @@ public class EventConsumption {
         this.processingStartedAt = processingStartedAt;
     }
 
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(Instant leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
     public Instant getCompletedAt() {
         return completedAt;
     }
@@ -8,16 +8,22 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "event_metrics")
+@Table(name = "event_metrics", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_event_metrics_key", columnNames = {"metric_date", "event_type", "consumer_worker_id", "status"})
+}, indexes = {
+    @Index(name = "idx_event_metrics_type_date", columnList = "event_type, metric_date, status")
+})
 public class EventMetrics {
 
     @Id
@@ -47,6 +53,13 @@ public class EventMetrics {
     @Column(name = "avg_processing_time_ms")
     private Long avgProcessingTimeMs;
 
+    // Serialized LatencyHistogram of processing times; queue waits are kept on the PROCESSING row of a key
+    @Column(name = "processing_histogram")
+    private byte[] processingHistogram;
+
+    @Column(name = "queue_wait_histogram")
+    private byte[] queueWaitHistogram;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
@@ -76,7 +89,11 @@ public class EventMetrics {
     }
 
     public void incrementEventCount() {
-        this.eventCount = this.eventCount + 1;
+        incrementEventCount(1);
+    }
+
+    public void incrementEventCount(long count) {
+        this.eventCount = this.eventCount + count;
     }
 
     public void addProcessingTime(long processingTimeMs) {
@@ -153,6 +170,22 @@ public class EventMetrics {
         this.avgProcessingTimeMs = avgProcessingTimeMs;
     }
 
+    public byte[] getProcessingHistogram() {
+        return processingHistogram;
+    }
+
+    public void setProcessingHistogram(byte[] processingHistogram) {
+        this.processingHistogram = processingHistogram;
+    }
+
+    public byte[] getQueueWaitHistogram() {
+        return queueWaitHistogram;
+    }
+
+    public void setQueueWaitHistogram(byte[] queueWaitHistogram) {
+        this.queueWaitHistogram = queueWaitHistogram;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,146 @@
+package com.example.eventbus.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+
+@Entity
+@Table(name = "event_subscription", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_event_subscription_consumer_type", columnNames = {"consumer_worker_id", "event_type"})
+}, indexes = {
+    @Index(name = "idx_event_subscription_type", columnList = "event_type")
+})
+public class EventSubscription {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "consumer_worker_id", nullable = false)
+    private SystemWorker consumerWorker;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "last_dispatched_event_id", nullable = false)
+    private Long lastDispatchedEventId = 0L;
+
+    @Column(name = "verified_event_id", nullable = false)
+    private Long verifiedEventId = 0L;
+
+    @Column(name = "verification_target_id")
+    private Long verificationTargetId;
+
+    @Column(name = "verification_target_at")
+    private Instant verificationTargetAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public EventSubscription() {
+    }
+
+    public EventSubscription(SystemWorker consumerWorker, String eventType) {
+        this.consumerWorker = consumerWorker;
+        this.eventType = eventType;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        Instant now = Instant.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SystemWorker getConsumerWorker() {
+        return consumerWorker;
+    }
+
+    public void setConsumerWorker(SystemWorker consumerWorker) {
+        this.consumerWorker = consumerWorker;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getLastDispatchedEventId() {
+        return lastDispatchedEventId;
+    }
+
+    public void setLastDispatchedEventId(Long lastDispatchedEventId) {
+        this.lastDispatchedEventId = lastDispatchedEventId;
+    }
+
+    public Long getVerifiedEventId() {
+        return verifiedEventId;
+    }
+
+    public void setVerifiedEventId(Long verifiedEventId) {
+        this.verifiedEventId = verifiedEventId;
+    }
+
+    public Long getVerificationTargetId() {
+        return verificationTargetId;
+    }
+
+    public void setVerificationTargetId(Long verificationTargetId) {
+        this.verificationTargetId = verificationTargetId;
+    }
+
+    public Instant getVerificationTargetAt() {
+        return verificationTargetAt;
+    }
+
+    public void setVerificationTargetAt(Instant verificationTargetAt) {
+        this.verificationTargetAt = verificationTargetAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.eventbus.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Table(name = "event_signal")
+public class EventTypeSignal {
+
+    @Id
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "published_sequence", nullable = false)
+    private Long publishedSequence = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public EventTypeSignal() {
+    }
+
+    public EventTypeSignal(String eventType, Long publishedSequence) {
+        this.eventType = eventType;
+        this.publishedSequence = publishedSequence;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = Instant.now();
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getPublishedSequence() {
+        return publishedSequence;
+    }
+
+    public void setPublishedSequence(Long publishedSequence) {
+        this.publishedSequence = publishedSequence;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -5,20 +5,23 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.Instant;
 
 @Entity
-@Table(name = "system_workers")
+@Table(name = "system_workers", indexes = {
+    @Index(name = "uk_system_workers_worker_name", columnList = "worker_name", unique = true)
+})
 public class SystemWorker {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "worker_name", nullable = false, unique = true)
+    @Column(name = "worker_name", nullable = false)
     private String workerName;
 
     @Column(name = "description")
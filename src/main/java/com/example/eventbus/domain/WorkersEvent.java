@@ -1,29 +1,47 @@
 package com.example.eventbus.domain;
 
+import com.example.eventbus.domain.id.EventIdGenerator;
+import com.example.eventbus.domain.id.EventUuidConverter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.Instant;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
-@Table(name = "workers_event")
+@Table(name = "workers_event", indexes = {
+    @Index(name = "uk_workers_event_uuid", columnList = "event_uuid", unique = true),
+    @Index(name = "idx_workers_event_type_id", columnList = "event_type, id"),
+    @Index(name = "idx_workers_event_type_status_created", columnList = "event_type, status, created_at"),
+    @Index(name = "idx_workers_event_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_workers_event_payload_ref", columnList = "payload_ref, status")
+})
 public class WorkersEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "workers_event_id")
+    @GenericGenerator(name = "workers_event_id", type = EventIdGenerator.class, parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "workers_event_seq"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "100"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Long id;
 
-    @Column(name = "event_uuid", nullable = false, unique = true, length = 36)
+    @Column(name = "event_uuid", nullable = false)
+    @Convert(converter = EventUuidConverter.class)
     private String eventUuid;
 
     @Column(name = "event_type", nullable = false)
@@ -36,9 +54,20 @@ public class WorkersEvent {
     @JoinColumn(name = "producer_worker_id")
     private SystemWorker producerWorker;
 
-    @Column(name = "event_data", nullable = false, columnDefinition = "JSON")
+    // Written by the json codec; events of types with a binary codec leave it null and use eventPayload
+    @Column(name = "event_data", columnDefinition = "JSON")
     private String eventData;
 
+    @Column(name = "event_payload")
+    private byte[] eventPayload;
+
+    // SHA-256 reference of a payload offloaded to the BlobStore; event_data and event_payload are null when set
+    @Column(name = "payload_ref")
+    private String payloadRef;
+
+    @Column(name = "payload_codec", nullable = false)
+    private String payloadCodec = "json";
+
     @Column(name = "event_schema", columnDefinition = "JSON")
     private String eventSchema;
 
@@ -145,6 +174,30 @@ public class WorkersEvent {
         this.eventData = eventData;
     }
 
+    public byte[] getEventPayload() {
+        return eventPayload;
+    }
+
+    public void setEventPayload(byte[] eventPayload) {
+        this.eventPayload = eventPayload;
+    }
+
+    public String getPayloadRef() {
+        return payloadRef;
+    }
+
+    public void setPayloadRef(String payloadRef) {
+        this.payloadRef = payloadRef;
+    }
+
+    public String getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    public void setPayloadCodec(String payloadCodec) {
+        this.payloadCodec = payloadCodec;
+    }
+
     public String getEventSchema() {
         return eventSchema;
     }
@@ -0,0 +1,70 @@
+package com.example.eventbus.domain.id;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+public class EventIdGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY_SETTING = "eventbus.id.strategy";
+    public static final String NODE_ID_SETTING = "eventbus.id.node-id";
+    public static final String TIME_ORDERED = "time-ordered";
+    public static final String SEQUENCE = "sequence";
+
+    private TimeOrderedIdGenerator timeOrderedIds;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configuration = serviceRegistry.getService(ConfigurationService.class);
+        String strategy = String.valueOf(configuration.getSettings().getOrDefault(STRATEGY_SETTING, TIME_ORDERED));
+        if (TIME_ORDERED.equals(strategy)) {
+            timeOrderedIds = new TimeOrderedIdGenerator(resolveNodeId(configuration.getSettings().get(NODE_ID_SETTING)));
+        } else if (SEQUENCE.equals(strategy)) {
+            super.configure(type, parameters, serviceRegistry);
+        } else {
+            throw new MappingException("Unknown " + STRATEGY_SETTING + " '" + strategy + "', expected "
+                + TIME_ORDERED + " or " + SEQUENCE);
+        }
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (timeOrderedIds == null) {
+            super.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (timeOrderedIds == null) {
+            super.initialize(context);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (timeOrderedIds != null) {
+            return timeOrderedIds.nextId();
+        }
+        return super.generate(session, object);
+    }
+
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return timeOrderedIds == null && super.supportsBulkInsertionIdentifierGeneration();
+    }
+
+    private int resolveNodeId(Object configured) {
+        if (configured != null && !String.valueOf(configured).isBlank()) {
+            return Integer.parseInt(String.valueOf(configured).trim());
+        }
+        return Math.floorMod(ManagementFactory.getRuntimeMXBean().getName().hashCode(), TimeOrderedIdGenerator.MAX_NODE_ID + 1);
+    }
+}
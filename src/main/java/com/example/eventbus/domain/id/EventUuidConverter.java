@@ -0,0 +1,21 @@
+package com.example.eventbus.domain.id;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.UUID;
+
+// Maps the textual event UUID onto a UUID column so hibernate.type.preferred_uuid_jdbc_type decides between
+// BINARY(16) and CHAR(36) storage
+@Converter
+public class EventUuidConverter implements AttributeConverter<String, UUID> {
+
+    @Override
+    public UUID convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : UUID.fromString(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(UUID dbData) {
+        return dbData == null ? null : dbData.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.eventbus.domain.id;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.HexFormat;
+
+// Idempotency keys are hex-encoded SHA-256 digests in the application and their 32 raw bytes in the BINARY(32) column
+@Converter
+public class IdempotencyKeyConverter implements AttributeConverter<String, byte[]> {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : HEX.parseHex(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : HEX.formatHex(dbData);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.eventbus.domain.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+public class UuidV7Generator {
+
+    private static final long COUNTER_MASK = 0xFFFL;
+
+    private final SecureRandom random = new SecureRandom();
+    private long lastTimestamp = -1L;
+    private long counter;
+
+    // RFC 9562 version 7: 48-bit unix millis, then rand_a used as a per-millisecond counter so ids from one node sort
+    // in generation order, then 62 random bits
+    public UUID nextUuid() {
+        long timestamp;
+        long sequence;
+        synchronized (this) {
+            timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                counter = (counter + 1) & COUNTER_MASK;
+                if (counter == 0) {
+                    timestamp++;
+                }
+            } else {
+                counter = random.nextInt(0x800);
+            }
+            lastTimestamp = timestamp;
+            sequence = counter;
+        }
+        long mostSignificant = (timestamp << 16) | 0x7000L | sequence;
+        long leastSignificant = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
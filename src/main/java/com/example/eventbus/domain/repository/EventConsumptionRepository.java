@@ -2,18 +2,28 @@ package com.example.eventbus.domain.repository;
 
 import com.example.eventbus.domain.EventConsumption;
 import com.example.eventbus.domain.EventStatus;
+import com.example.eventbus.dto.ConsumerLag;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 public interface EventConsumptionRepository extends JpaRepository<EventConsumption, Long> {
 
     Optional<EventConsumption> findByEventUuidAndConsumerWorker_Id(String eventUuid, Long consumerWorkerId);
 
+    List<EventConsumption> findByEventUuidInAndConsumerWorker_Id(Collection<String> eventUuids, Long consumerWorkerId);
+
     Optional<EventConsumption> findByIdempotencyKey(String idempotencyKey);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
@@ -21,5 +31,88 @@ public interface EventConsumptionRepository extends JpaRepository<EventConsumpti
     Optional<EventConsumption> lockByEventUuidAndConsumerWorker(@Param("eventUuid") String eventUuid,
                                                                 @Param("consumerWorkerId") Long consumerWorkerId);
 
-    long countByConsumerWorker_IdAndStatus(Long consumerWorkerId, EventStatus status);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = WorkersEventRepository.SKIP_LOCKED))
+    @Query("select c from EventConsumption c where c.consumerWorker.id = :consumerWorkerId "
+        + "and c.eventType = :eventType and c.status in :statuses and c.nextAttemptAt <= :now "
+        + "order by c.nextAttemptAt asc")
+    List<EventConsumption> lockDueRedeliveries(@Param("consumerWorkerId") Long consumerWorkerId,
+                                               @Param("eventType") String eventType,
+                                               @Param("statuses") Collection<EventStatus> statuses,
+                                               @Param("now") Instant now,
+                                               Pageable pageable);
+
+    @Modifying
+    @Query("update EventConsumption c set c.leaseExpiresAt = :leaseExpiresAt, c.updatedAt = :now "
+        + "where c.eventUuid = :eventUuid and c.consumerWorker.id = :consumerWorkerId "
+        + "and c.status = com.example.eventbus.domain.EventStatus.PROCESSING and c.leaseOwner = :leaseOwner")
+    int extendLease(@Param("eventUuid") String eventUuid,
+                    @Param("consumerWorkerId") Long consumerWorkerId,
+                    @Param("leaseOwner") String leaseOwner,
+                    @Param("leaseExpiresAt") Instant leaseExpiresAt,
+                    @Param("now") Instant now);
+
+    // Completions only apply while the attempt still holds its lease, so a worker finishing after the lease was
+    // released or re-claimed cannot overwrite the newer attempt
+    @Modifying(clearAutomatically = true)
+    @Query("update EventConsumption c set c.status = com.example.eventbus.domain.EventStatus.SUCCESS, "
+        + "c.completedAt = :now, c.resultHash = :resultHash, c.leaseExpiresAt = null, c.leaseOwner = null, "
+        + "c.updatedAt = :now where c.id in :ids "
+        + "and c.status = com.example.eventbus.domain.EventStatus.PROCESSING and c.leaseOwner = :leaseOwner")
+    int markSucceeded(@Param("ids") Collection<Long> ids,
+                      @Param("resultHash") String resultHash,
+                      @Param("leaseOwner") String leaseOwner,
+                      @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update EventConsumption c set c.status = :status, c.failedAt = :now, c.completedAt = :now, "
+        + "c.errorMessage = :message, c.errorStackTrace = :stackTrace, c.nextAttemptAt = :nextAttemptAt, "
+        + "c.leaseExpiresAt = null, c.leaseOwner = null, c.updatedAt = :now where c.id in :ids "
+        + "and c.status = com.example.eventbus.domain.EventStatus.PROCESSING and c.leaseOwner = :leaseOwner")
+    int markFailed(@Param("ids") Collection<Long> ids,
+                   @Param("status") EventStatus status,
+                   @Param("message") String message,
+                   @Param("stackTrace") String stackTrace,
+                   @Param("nextAttemptAt") Instant nextAttemptAt,
+                   @Param("leaseOwner") String leaseOwner,
+                   @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update EventConsumption c set c.status = com.example.eventbus.domain.EventStatus.FAILED_PERMANENT, "
+        + "c.failedAt = :now, c.completedAt = :now, c.errorMessage = :message, c.nextAttemptAt = null, "
+        + "c.leaseExpiresAt = null, c.leaseOwner = null, c.updatedAt = :now "
+        + "where c.status = com.example.eventbus.domain.EventStatus.PROCESSING and c.leaseExpiresAt < :now "
+        + "and c.attemptNumber > (select w.maxRetries from SystemWorker w where w.id = c.consumerWorker.id)")
+    int deadLetterExpiredLeases(@Param("now") Instant now, @Param("message") String message);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update EventConsumption c set c.status = com.example.eventbus.domain.EventStatus.FAILED_RETRYABLE, "
+        + "c.failedAt = :now, c.errorMessage = :message, c.nextAttemptAt = :now, "
+        + "c.leaseExpiresAt = null, c.leaseOwner = null, c.updatedAt = :now "
+        + "where c.status = com.example.eventbus.domain.EventStatus.PROCESSING and c.leaseExpiresAt < :now")
+    int releaseExpiredLeases(@Param("now") Instant now, @Param("message") String message);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update EventConsumption c set c.status = com.example.eventbus.domain.EventStatus.PENDING, "
+        + "c.failedAt = null, c.completedAt = null, c.errorMessage = null, c.errorStackTrace = null, "
+        + "c.attemptNumber = 0, c.nextAttemptAt = :now, c.updatedAt = :now "
+        + "where c.eventUuid = :eventUuid and c.status <> com.example.eventbus.domain.EventStatus.PROCESSING")
+    int resetForReplay(@Param("eventUuid") String eventUuid, @Param("now") Instant now);
+
+    @Query("select new com.example.eventbus.dto.ConsumerLag(c.eventType, c.consumerWorker.id, count(c), min(e.createdAt)) "
+        + "from EventConsumption c, WorkersEvent e where e.eventUuid = c.eventUuid and c.status in :statuses "
+        + "group by c.eventType, c.consumerWorker.id")
+    List<ConsumerLag> summarizeByStatusIn(@Param("statuses") Collection<EventStatus> statuses);
+
+    @Query("select min(e.createdAt) from EventConsumption c, WorkersEvent e where e.eventUuid = c.eventUuid "
+        + "and c.consumerWorker.id = :consumerWorkerId and c.eventType = :eventType and c.status in :statuses")
+    Instant findOldestEventCreatedAt(@Param("consumerWorkerId") Long consumerWorkerId,
+                                     @Param("eventType") String eventType,
+                                     @Param("statuses") Collection<EventStatus> statuses);
+
+    // Derived from the method name this joins system_workers and filters on the joined id, which hides the
+    // consumer_worker_id predicate from idx_event_consumption_worker_status
+    @Query("select count(c) from EventConsumption c where c.consumerWorker.id = :consumerWorkerId and c.status = :status")
+    long countByConsumerWorker_IdAndStatus(@Param("consumerWorkerId") Long consumerWorkerId,
+                                           @Param("status") EventStatus status);
 }
@@ -2,17 +2,47 @@ package com.example.eventbus.domain.repository;
 
 import com.example.eventbus.domain.EventMetrics;
 import com.example.eventbus.domain.EventStatus;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface EventMetricsRepository extends JpaRepository<EventMetrics, Long> {
 
-    Optional<EventMetrics> findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus(LocalDate metricDate,
-                                                                                     String eventType,
-                                                                                     Long consumerWorkerId,
-                                                                                     EventStatus status);
+    // Clears the persistence context so the row is re-read with the upserted counters before its histograms are merged.
+    // The average is assigned first so MySQL, which applies the assignments left to right, and H2 both read the old
+    // counters when computing it
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "insert into event_metrics (metric_date, event_type, consumer_worker_id, status, event_count, "
+        + "total_processing_time_ms, avg_processing_time_ms, created_at, updated_at) "
+        + "values (:metricDate, :eventType, :consumerWorkerId, :status, :eventCount, :processingTimeMs, "
+        + "floor(:processingTimeMs / :eventCount), :now, :now) "
+        + "on duplicate key update "
+        + "avg_processing_time_ms = floor((total_processing_time_ms + :processingTimeMs) / (event_count + :eventCount)), "
+        + "event_count = event_count + :eventCount, "
+        + "total_processing_time_ms = total_processing_time_ms + :processingTimeMs, "
+        + "updated_at = :now", nativeQuery = true)
+    int upsert(@Param("metricDate") LocalDate metricDate,
+               @Param("eventType") String eventType,
+               @Param("consumerWorkerId") Long consumerWorkerId,
+               @Param("status") String status,
+               @Param("eventCount") long eventCount,
+               @Param("processingTimeMs") long processingTimeMs,
+               @Param("now") Instant now);
+
+    // Derived from the method name this joins system_workers and filters on the joined id, which keeps the lookup off
+    // uk_event_metrics_key
+    @Query("select m from EventMetrics m where m.metricDate = :metricDate and m.eventType = :eventType "
+        + "and m.consumerWorker.id = :consumerWorkerId and m.status = :status")
+    Optional<EventMetrics> findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus(
+        @Param("metricDate") LocalDate metricDate,
+        @Param("eventType") String eventType,
+        @Param("consumerWorkerId") Long consumerWorkerId,
+        @Param("status") EventStatus status);
 
     List<EventMetrics> findByEventTypeAndMetricDateBetween(String eventType, LocalDate from, LocalDate to);
 
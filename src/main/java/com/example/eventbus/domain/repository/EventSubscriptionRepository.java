@@ -0,0 +1,30 @@
+package com.example.eventbus.domain.repository;
+
+import com.example.eventbus.domain.EventSubscription;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface EventSubscriptionRepository extends JpaRepository<EventSubscription, Long> {
+
+    Optional<EventSubscription> findByConsumerWorker_IdAndEventType(Long consumerWorkerId, String eventType);
+
+    boolean existsByConsumerWorker_IdAndEventType(Long consumerWorkerId, String eventType);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = WorkersEventRepository.SKIP_LOCKED))
+    @Query("select s from EventSubscription s where s.consumerWorker.id = :consumerWorkerId and s.eventType = :eventType")
+    Optional<EventSubscription> lockByConsumerWorkerAndEventType(@Param("consumerWorkerId") Long consumerWorkerId,
+                                                                 @Param("eventType") String eventType);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = WorkersEventRepository.SKIP_LOCKED))
+    @Query("select s from EventSubscription s order by s.id asc")
+    List<EventSubscription> lockAll();
+}
@@ -0,0 +1,22 @@
+package com.example.eventbus.domain.repository;
+
+import com.example.eventbus.domain.EventTypeSignal;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface EventTypeSignalRepository extends JpaRepository<EventTypeSignal, String> {
+
+    @Query("select s.publishedSequence from EventTypeSignal s where s.eventType = :eventType")
+    Optional<Long> findPublishedSequence(@Param("eventType") String eventType);
+
+    // One statement creates the row on first use or bumps it, so nodes signalling a new type at the same time cannot
+    // fail each other's publish with a duplicate key
+    @Modifying
+    @Query(value = "insert into event_signal (event_type, published_sequence, updated_at) values (:eventType, 1, :now) "
+        + "on duplicate key update published_sequence = published_sequence + 1, updated_at = :now", nativeQuery = true)
+    int increment(@Param("eventType") String eventType, @Param("now") Instant now);
+}
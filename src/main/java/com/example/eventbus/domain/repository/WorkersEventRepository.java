@@ -2,9 +2,12 @@ package com.example.eventbus.domain.repository;
 
 import com.example.eventbus.domain.EventStatus;
 import com.example.eventbus.domain.WorkersEvent;
+import com.example.eventbus.dto.ClaimedEvent;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -12,12 +15,79 @@ import org.springframework.data.repository.query.Param;
 
 public interface WorkersEventRepository extends JpaRepository<WorkersEvent, Long> {
 
+    // Hibernate's LockOptions.SKIP_LOCKED, rendered as FOR UPDATE SKIP LOCKED where the dialect supports it
+    String SKIP_LOCKED = "-2";
+
+    // Claim paths select only these columns; event_data is read by the consumer when the event is executed
+    String CLAIMED_EVENT = "select new com.example.eventbus.dto.ClaimedEvent(e.id, e.eventUuid, e.eventType, "
+        + "e.eventVersion, e.correlationId, e.partNumber, e.partsCount, e.createdAt) from WorkersEvent e ";
+
     Optional<WorkersEvent> findByEventUuid(String eventUuid);
 
-    List<WorkersEvent> findTop100ByEventTypeAndStatusOrderByCreatedAtAsc(String eventType, EventStatus status);
+    @Query(CLAIMED_EVENT + "where e.eventUuid in :eventUuids")
+    List<ClaimedEvent> findClaimedByEventUuidIn(@Param("eventUuids") Collection<String> eventUuids);
+
+    List<WorkersEvent> findByEventTypeAndStatusOrderByCreatedAtAsc(String eventType, EventStatus status, Pageable pageable);
 
     List<WorkersEvent> findByStatusAndCreatedAtBefore(EventStatus status, Instant createdAt);
 
+    long countByEventTypeAndIdGreaterThan(String eventType, Long id);
+
+    @Query("select e.createdAt from WorkersEvent e where e.eventType = :eventType and e.id > :afterId order by e.id asc")
+    List<Instant> findCreatedAtAfter(@Param("eventType") String eventType, @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Query(CLAIMED_EVENT + "where e.eventType = :eventType and e.id > :afterId "
+        + "and e.status <> com.example.eventbus.domain.EventStatus.ARCHIVED "
+        + "and not exists (select c.id from EventConsumption c "
+        + "where c.eventUuid = e.eventUuid and c.consumerWorker.id = :consumerWorkerId) "
+        + "order by e.id asc")
+    List<ClaimedEvent> findUndelivered(@Param("eventType") String eventType,
+                                       @Param("afterId") Long afterId,
+                                       @Param("consumerWorkerId") Long consumerWorkerId,
+                                       Pageable pageable);
+
+    @Query(CLAIMED_EVENT + "where e.eventType = :eventType and e.id > :afterId and e.id <= :throughId "
+        + "and e.status <> com.example.eventbus.domain.EventStatus.ARCHIVED "
+        + "and not exists (select c.id from EventConsumption c "
+        + "where c.eventUuid = e.eventUuid and c.consumerWorker.id = :consumerWorkerId) "
+        + "order by e.id asc")
+    List<ClaimedEvent> findUndeliveredBetween(@Param("eventType") String eventType,
+                                              @Param("afterId") Long afterId,
+                                              @Param("throughId") Long throughId,
+                                              @Param("consumerWorkerId") Long consumerWorkerId);
+
+    // Recent events below a verified cursor that the subscriber still has no consumption for, i.e. events whose
+    // transaction committed after their cursor range was verified
+    @Query(CLAIMED_EVENT + "where e.eventType = :eventType "
+        + "and e.status = com.example.eventbus.domain.EventStatus.PENDING and e.createdAt >= :since "
+        + "and e.id <= :throughId and not exists (select c.id from EventConsumption c "
+        + "where c.eventUuid = e.eventUuid and c.consumerWorker.id = :consumerWorkerId) "
+        + "order by e.id asc")
+    List<ClaimedEvent> findUndeliveredCreatedSince(@Param("eventType") String eventType,
+                                                   @Param("since") Instant since,
+                                                   @Param("throughId") Long throughId,
+                                                   @Param("consumerWorkerId") Long consumerWorkerId);
+
+    // An event is only archived once every subscription of its type has dispatched and verified past it and holds a
+    // consumption for it, and none of its consumptions is still open; findUndelivered never returns archived events
+    @Query("select e.id from WorkersEvent e where e.status = com.example.eventbus.domain.EventStatus.PENDING "
+        + "and e.createdAt < :threshold and not exists (select c.id from EventConsumption c "
+        + "where c.eventUuid = e.eventUuid and c.status in :openStatuses) "
+        + "and not exists (select s.id from EventSubscription s where s.eventType = e.eventType "
+        + "and (s.lastDispatchedEventId < e.id or s.verifiedEventId < e.id or not exists (select d.id "
+        + "from EventConsumption d where d.eventUuid = e.eventUuid and d.consumerWorker.id = s.consumerWorker.id)))")
+    List<Long> findArchivableIds(@Param("threshold") Instant threshold,
+                                 @Param("openStatuses") Collection<EventStatus> openStatuses);
+
+    @Query("select distinct e.payloadRef from WorkersEvent e where e.id in :ids and e.payloadRef is not null")
+    List<String> findPayloadRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Blobs shared with events that are not archived yet must survive the archival of the others
+    @Query("select distinct e.payloadRef from WorkersEvent e where e.payloadRef in :payloadRefs "
+        + "and e.status <> com.example.eventbus.domain.EventStatus.ARCHIVED")
+    List<String> findReferencedPayloadRefs(@Param("payloadRefs") Collection<String> payloadRefs);
+
     @Modifying
     @Query("update WorkersEvent e set e.status = :status, e.archivedAt = :archivedAt where e.id in :ids")
     int bulkUpdateStatus(@Param("status") EventStatus status, @Param("archivedAt") Instant archivedAt, @Param("ids") List<Long> ids);
@@ -0,0 +1,59 @@
+package com.example.eventbus.dto;
+
+import java.time.Instant;
+
+public class ClaimedEvent {
+
+    private final Long id;
+    private final String eventUuid;
+    private final String eventType;
+    private final Integer eventVersion;
+    private final String correlationId;
+    private final Integer partNumber;
+    private final Integer partsCount;
+    private final Instant createdAt;
+
+    public ClaimedEvent(Long id, String eventUuid, String eventType, Integer eventVersion, String correlationId,
+                        Integer partNumber, Integer partsCount, Instant createdAt) {
+        this.id = id;
+        this.eventUuid = eventUuid;
+        this.eventType = eventType;
+        this.eventVersion = eventVersion;
+        this.correlationId = correlationId;
+        this.partNumber = partNumber;
+        this.partsCount = partsCount;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventUuid() {
+        return eventUuid;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Integer getEventVersion() {
+        return eventVersion;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public Integer getPartNumber() {
+        return partNumber;
+    }
+
+    public Integer getPartsCount() {
+        return partsCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
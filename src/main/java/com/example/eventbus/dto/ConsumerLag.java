@@ -0,0 +1,34 @@
+package com.example.eventbus.dto;
+
+import java.time.Instant;
+
+public class ConsumerLag {
+
+    private final String eventType;
+    private final Long consumerWorkerId;
+    private final long pending;
+    private final Instant oldestPendingAt;
+
+    public ConsumerLag(String eventType, Long consumerWorkerId, long pending, Instant oldestPendingAt) {
+        this.eventType = eventType;
+        this.consumerWorkerId = consumerWorkerId;
+        this.pending = pending;
+        this.oldestPendingAt = oldestPendingAt;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getConsumerWorkerId() {
+        return consumerWorkerId;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public Instant getOldestPendingAt() {
+        return oldestPendingAt;
+    }
+}
@@ -6,20 +6,28 @@ public class ConsumptionResult {
     private final Object resultData;
     private final boolean retryable;
     private final String errorMessage;
+    private final String resultHash;
 
-    private ConsumptionResult(boolean success, Object resultData, boolean retryable, String errorMessage) {
+    private ConsumptionResult(boolean success, Object resultData, boolean retryable, String errorMessage,
+                              String resultHash) {
         this.success = success;
         this.resultData = resultData;
         this.retryable = retryable;
         this.errorMessage = errorMessage;
+        this.resultHash = resultHash;
     }
 
     public static ConsumptionResult success(Object resultData) {
-        return new ConsumptionResult(true, resultData, false, null);
+        return new ConsumptionResult(true, resultData, false, null, null);
     }
 
     public static ConsumptionResult failure(String errorMessage, boolean retryable) {
-        return new ConsumptionResult(false, null, retryable, errorMessage);
+        return new ConsumptionResult(false, null, retryable, errorMessage, null);
+    }
+
+    // Set by BaseEventConsumer once the result is hashed, so the acknowledgement does not serialize it again
+    public ConsumptionResult withResultHash(String resultHash) {
+        return new ConsumptionResult(success, resultData, retryable, errorMessage, resultHash);
     }
 
     public boolean isSuccess() {
@@ -37,4 +45,8 @@ public class ConsumptionResult {
     public String getErrorMessage() {
         return errorMessage;
     }
+
+    public String getResultHash() {
+        return resultHash;
+    }
 }
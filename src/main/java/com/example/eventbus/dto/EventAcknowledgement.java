@@ -0,0 +1,48 @@
+package com.example.eventbus.dto;
+
+public class EventAcknowledgement {
+
+    private final String eventUuid;
+    private final Long consumerWorkerId;
+    private final String resultHash;
+    private final String errorMessage;
+    private final boolean retryable;
+
+    private EventAcknowledgement(String eventUuid, Long consumerWorkerId, String resultHash, String errorMessage,
+                                 boolean retryable) {
+        this.eventUuid = eventUuid;
+        this.consumerWorkerId = consumerWorkerId;
+        this.resultHash = resultHash;
+        this.errorMessage = errorMessage;
+        this.retryable = retryable;
+    }
+
+    public static EventAcknowledgement success(String eventUuid, Long consumerWorkerId, String resultHash) {
+        return new EventAcknowledgement(eventUuid, consumerWorkerId, resultHash, null, false);
+    }
+
+    public static EventAcknowledgement failure(String eventUuid, Long consumerWorkerId, String errorMessage,
+                                               boolean retryable) {
+        return new EventAcknowledgement(eventUuid, consumerWorkerId, null, errorMessage, retryable);
+    }
+
+    public String getEventUuid() {
+        return eventUuid;
+    }
+
+    public Long getConsumerWorkerId() {
+        return consumerWorkerId;
+    }
+
+    public String getResultHash() {
+        return resultHash;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.eventbus.metrics;
+
+import com.example.eventbus.dto.ConsumerLag;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+// Approximate backlog per (event type, consumer), kept without counting rows: events published on this node add to every
+// known subscriber of their type and terminal outcomes subtract. Work done on other nodes, expired leases and replays
+// only show up when ConsumerLagReconciler replaces the estimates with database counts.
+@Component
+public class ConsumerLagTracker {
+
+    private final MeterRegistry registry;
+    private final Map<String, Map<Long, Lag>> lagByEventType = new ConcurrentHashMap<>();
+
+    public ConsumerLagTracker(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void published(String eventType, long count) {
+        Map<Long, Lag> consumers = lagByEventType.get(eventType);
+        if (consumers == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        consumers.values().forEach(lag -> lag.add(count, now));
+    }
+
+    public void completed(String eventType, Long consumerWorkerId, long count) {
+        lag(eventType, consumerWorkerId).add(-count, 0L);
+    }
+
+    // Keys missing from the snapshot have nothing pending any more
+    public void reconcile(List<ConsumerLag> snapshot) {
+        Set<Lag> seen = new HashSet<>();
+        for (ConsumerLag exact : snapshot) {
+            Lag lag = lag(exact.getEventType(), exact.getConsumerWorkerId());
+            lag.reset(exact.getPending(), exact.getOldestPendingAt());
+            seen.add(lag);
+        }
+        lagByEventType.values().forEach(consumers -> consumers.values().stream()
+            .filter(lag -> !seen.contains(lag))
+            .forEach(lag -> lag.reset(0L, null)));
+    }
+
+    // An empty result means the database has nothing pending, so a positive estimate is stale and dropped as well
+    public void refreshOldestPending(String eventType, Long consumerWorkerId, Optional<Instant> oldestPendingAt) {
+        Lag lag = lag(eventType, consumerWorkerId);
+        if (oldestPendingAt.isPresent()) {
+            lag.oldestPendingAt = oldestPendingAt.get().toEpochMilli();
+        } else {
+            lag.reset(0L, null);
+        }
+    }
+
+    public List<ConsumerLag> getConsumerLag() {
+        List<ConsumerLag> estimates = new ArrayList<>();
+        lagByEventType.forEach((eventType, consumers) -> consumers.forEach((consumerWorkerId, lag) -> {
+            long oldest = lag.oldestPendingAt;
+            estimates.add(new ConsumerLag(eventType, consumerWorkerId, lag.pending(),
+                oldest > 0 ? Instant.ofEpochMilli(oldest) : null));
+        }));
+        return estimates;
+    }
+
+    private Lag lag(String eventType, Long consumerWorkerId) {
+        return lagByEventType.computeIfAbsent(eventType, type -> new ConcurrentHashMap<>())
+            .computeIfAbsent(consumerWorkerId, id -> register(eventType, id, new Lag()));
+    }
+
+    private Lag register(String eventType, Long consumerWorkerId, Lag lag) {
+        String consumer = String.valueOf(consumerWorkerId);
+        Gauge.builder("eventbus.consumer.lag", lag, Lag::pending)
+            .description("Estimated events not yet consumed by the consumer")
+            .tag("event.type", eventType)
+            .tag("consumer", consumer)
+            .register(registry);
+        TimeGauge.builder("eventbus.consumer.lag.oldest.age", lag, TimeUnit.MILLISECONDS, Lag::oldestAgeMillis)
+            .description("Age of the oldest event not yet consumed by the consumer")
+            .tag("event.type", eventType)
+            .tag("consumer", consumer)
+            .register(registry);
+        return lag;
+    }
+
+    private static final class Lag {
+
+        private final AtomicLong pending = new AtomicLong();
+        // epoch millis, 0 while nothing is pending
+        private volatile long oldestPendingAt;
+
+        void add(long delta, long now) {
+            long after = pending.addAndGet(delta);
+            if (after <= 0) {
+                oldestPendingAt = 0L;
+            } else if (delta > 0 && after - delta <= 0) {
+                oldestPendingAt = now;
+            }
+        }
+
+        void reset(long count, Instant oldest) {
+            pending.set(count);
+            oldestPendingAt = count > 0 && oldest != null ? oldest.toEpochMilli() : 0L;
+        }
+
+        long pending() {
+            return Math.max(pending.get(), 0L);
+        }
+
+        double oldestAgeMillis() {
+            long oldest = oldestPendingAt;
+            return oldest > 0 && pending() > 0 ? Math.max(System.currentTimeMillis() - oldest, 0L) : 0L;
+        }
+    }
+}
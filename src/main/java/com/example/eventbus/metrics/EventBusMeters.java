@@ -0,0 +1,57 @@
+package com.example.eventbus.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+// Real-time counterparts of the daily event_metrics rows; the service and scheduler report through this class so that
+// Micrometer stays out of the core code
+@Component
+public class EventBusMeters {
+
+    private static final String EVENT_TYPE = "event.type";
+
+    private final MeterRegistry registry;
+
+    public EventBusMeters(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void published(String eventType, long count) {
+        registry.counter("eventbus.events.published", EVENT_TYPE, eventType).increment(count);
+    }
+
+    public void claimed(String eventType, long count) {
+        registry.counter("eventbus.events.claimed", EVENT_TYPE, eventType).increment(count);
+    }
+
+    public void recordClaimQuery(String eventType, long nanos) {
+        Timer.builder("eventbus.claim.query")
+            .description("Duration of one claimBatch call made by a poll loop")
+            .tag(EVENT_TYPE, eventType)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAcknowledgement(String eventType, long nanos) {
+        Timer.builder("eventbus.ack")
+            .description("Duration of writing the outcome of one consumption or consumed batch")
+            .tag(EVENT_TYPE, eventType)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void retried(String eventType, long count) {
+        registry.counter("eventbus.events.retried", EVENT_TYPE, eventType).increment(count);
+    }
+
+    public void deadLettered(String eventType, long count) {
+        registry.counter("eventbus.events.dead.lettered", EVENT_TYPE, eventType).increment(count);
+    }
+
+    public void leasesExpired(long released, long deadLettered) {
+        registry.counter("eventbus.leases.expired", "outcome", "retry").increment(released);
+        registry.counter("eventbus.leases.expired", "outcome", "dead-letter").increment(deadLettered);
+    }
+}
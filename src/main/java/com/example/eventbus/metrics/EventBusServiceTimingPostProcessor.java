@@ -0,0 +1,46 @@
+package com.example.eventbus.metrics;
+
+import com.example.eventbus.service.IEventBusService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+// Adds an "eventbus.service" timer, tagged with the method name and the exception thrown (if any), around every
+// IEventBusService method. The advice joins the existing transactional proxy ahead of its advisors, so the timing
+// includes commit. The registry is resolved on first use to keep this post-processor free of early dependencies.
+@Component
+public class EventBusServiceTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public EventBusServiceTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        MethodInterceptor timing = invocation -> {
+            Timer.Sample sample = Timer.start();
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable ex) {
+                exception = ex.getClass().getSimpleName();
+                throw ex;
+            } finally {
+                sample.stop(Timer.builder("eventbus.service")
+                    .tag("method", invocation.getMethod().getName())
+                    .tag("exception", exception)
+                    .register(registry.getObject()));
+            }
+        };
+        this.advisor = new DefaultPointcutAdvisor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return IEventBusService.class.isAssignableFrom(targetClass)
+                    && ClassUtils.hasMethod(IEventBusService.class, method.getName(), method.getParameterTypes());
+            }
+        }, timing);
+        setBeforeExistingAdvisors(true);
+    }
+}
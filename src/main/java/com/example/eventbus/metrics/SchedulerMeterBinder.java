@@ -0,0 +1,34 @@
+package com.example.eventbus.metrics;
+
+import com.example.eventbus.scheduler.EventBusScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SchedulerMeterBinder implements MeterBinder {
+
+    private final EventBusScheduler scheduler;
+
+    public SchedulerMeterBinder(EventBusScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("eventbus.scheduler.in.flight", scheduler, EventBusScheduler::getInFlight)
+            .description("Events submitted to the consumer executor and not finished yet")
+            .register(registry);
+        Gauge.builder("eventbus.scheduler.queue.depth", scheduler, EventBusScheduler::getQueueDepth)
+            .description("Tasks waiting in the consumer executor queue")
+            .register(registry);
+        Gauge.builder("eventbus.scheduler.capacity", scheduler, EventBusScheduler::getCapacity)
+            .description("Threads plus queue slots of the consumer executor")
+            .register(registry);
+        FunctionCounter.builder("eventbus.scheduler.rejected", scheduler, EventBusScheduler::getRejectedSubmissions)
+            .description("Claimed events the executor rejected; they are redelivered after their lease expires")
+            .register(registry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.eventbus.scheduler;
+
+import com.example.eventbus.dto.ConsumerLag;
+import com.example.eventbus.metrics.ConsumerLagTracker;
+import com.example.eventbus.service.IEventBusService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ConsumerLagReconciler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsumerLagReconciler.class);
+
+    private final IEventBusService eventBusService;
+    private final ConsumerLagTracker lagTracker;
+    private final boolean reconcilerEnabled;
+
+    public ConsumerLagReconciler(IEventBusService eventBusService,
+                                 ConsumerLagTracker lagTracker,
+                                 @Value("${eventbus.metrics.lag.enabled:true}") boolean reconcilerEnabled) {
+        this.eventBusService = eventBusService;
+        this.lagTracker = lagTracker;
+        this.reconcilerEnabled = reconcilerEnabled;
+    }
+
+    // Counts every pending row, so it runs rarely; the tracker's incremental estimate covers the time in between
+    @Scheduled(fixedDelayString = "${eventbus.metrics.lag.reconcile-delay:300000}")
+    public void reconcile() {
+        if (!reconcilerEnabled) {
+            return;
+        }
+        try {
+            lagTracker.reconcile(eventBusService.getConsumerLag());
+        } catch (Exception ex) {
+            LOGGER.error("Failed to reconcile consumer lag", ex);
+        }
+    }
+
+    // Two index lookups per consumer, cheap enough to keep the oldest-pending age current
+    @Scheduled(fixedDelayString = "${eventbus.metrics.lag.refresh-delay:10000}")
+    public void refreshOldestPending() {
+        if (!reconcilerEnabled) {
+            return;
+        }
+        try {
+            for (ConsumerLag lag : lagTracker.getConsumerLag()) {
+                lagTracker.refreshOldestPending(lag.getEventType(), lag.getConsumerWorkerId(),
+                    eventBusService.findOldestPending(lag.getEventType(), lag.getConsumerWorkerId()));
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Failed to refresh the oldest pending events", ex);
+        }
+    }
+}
@@ -1,18 +1,40 @@
 package com.example.eventbus.scheduler;
 
+import com.example.eventbus.dispatch.EventSignal;
+import com.example.eventbus.dispatch.LocalEventBuffer;
+import com.example.eventbus.domain.SystemWorker;
 import com.example.eventbus.domain.WorkersEvent;
+import com.example.eventbus.dto.ClaimedEvent;
 import com.example.eventbus.dto.ConsumptionResult;
+import com.example.eventbus.metrics.EventBusMeters;
+import com.example.eventbus.service.IBatchEventConsumer;
 import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IEventConsumer;
 import com.example.eventbus.service.IIdempotencyService;
 import com.example.eventbus.service.IWorkerRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -21,69 +43,349 @@ import org.springframework.stereotype.Component;
 public class EventBusScheduler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EventBusScheduler.class);
+    private static final String VIRTUAL_MODE = "virtual";
+    private static final String PLATFORM_MODE = "platform";
 
     private final IWorkerRegistry workerRegistry;
     private final IEventBusService eventBusService;
     private final IIdempotencyService idempotencyService;
+    private final LocalEventBuffer localEventBuffer;
+    private final EventSignal eventSignal;
+    private final EventBusMeters meters;
     private final ExecutorService executorService;
+    private final ScheduledExecutorService poller;
+    private final Map<String, PollLoop> pollLoops = new ConcurrentHashMap<>();
+    private final long minPollDelayMs;
+    private final long maxPollDelayMs;
+    private final int capacity;
+    private final int maxInFlightPerEventType;
+    private final int maxInFlightPerConsumer;
     private final int pollBatchSize;
     private final boolean schedulerEnabled;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, AtomicInteger> inFlightByEventType = new ConcurrentHashMap<>();
+    private final Map<Long, Semaphore> consumerPermits = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedSubmissions = new AtomicLong();
 
+    @Autowired
     public EventBusScheduler(IWorkerRegistry workerRegistry,
                              IEventBusService eventBusService,
                              IIdempotencyService idempotencyService,
+                             LocalEventBuffer localEventBuffer,
+                             EventSignal eventSignal,
+                             EventBusMeters meters,
                              @Value("${eventbus.scheduler.thread-pool-size:4}") int threadPoolSize,
+                             @Value("${eventbus.scheduler.queue-capacity:100}") int queueCapacity,
+                             @Value("${eventbus.scheduler.max-in-flight-per-event-type:0}") int maxInFlightPerEventType,
+                             @Value("${eventbus.scheduler.max-in-flight-per-consumer:256}") int maxInFlightPerConsumer,
+                             @Value("${eventbus.scheduler.mode:platform}") String mode,
                              @Value("${eventbus.scheduler.poll-batch-size:50}") int pollBatchSize,
+                             @Value("${eventbus.scheduler.min-poll-delay:50}") long minPollDelayMs,
+                             @Value("${eventbus.scheduler.max-poll-delay:5000}") long maxPollDelayMs,
                              @Value("${eventbus.scheduler.enabled:true}") boolean schedulerEnabled) {
+        this(workerRegistry, eventBusService, idempotencyService, localEventBuffer, eventSignal, meters, threadPoolSize,
+            queueCapacity, maxInFlightPerEventType, maxInFlightPerConsumer, mode, pollBatchSize, minPollDelayMs,
+            maxPollDelayMs, schedulerEnabled, newPoller());
+    }
+
+    // Tests run the poll loops themselves through the poller they pass in
+    EventBusScheduler(IWorkerRegistry workerRegistry,
+                      IEventBusService eventBusService,
+                      IIdempotencyService idempotencyService,
+                      LocalEventBuffer localEventBuffer,
+                      EventSignal eventSignal,
+                      EventBusMeters meters,
+                      int threadPoolSize,
+                      int queueCapacity,
+                      int maxInFlightPerEventType,
+                      int maxInFlightPerConsumer,
+                      String mode,
+                      int pollBatchSize,
+                      long minPollDelayMs,
+                      long maxPollDelayMs,
+                      boolean schedulerEnabled,
+                      ScheduledExecutorService poller) {
         this.workerRegistry = workerRegistry;
         this.eventBusService = eventBusService;
         this.idempotencyService = idempotencyService;
-        this.executorService = Executors.newFixedThreadPool(threadPoolSize);
+        this.localEventBuffer = localEventBuffer;
+        this.eventSignal = eventSignal;
+        this.meters = meters;
+        ExecutorService virtualThreads = VIRTUAL_MODE.equals(mode) ? newVirtualThreadExecutor() : null;
+        if (virtualThreads != null) {
+            this.executorService = virtualThreads;
+            this.capacity = Integer.MAX_VALUE;
+        } else if (VIRTUAL_MODE.equals(mode) || PLATFORM_MODE.equals(mode)) {
+            this.executorService = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+            this.capacity = threadPoolSize + queueCapacity;
+        } else {
+            throw new IllegalArgumentException("Unknown eventbus.scheduler.mode '" + mode + "', expected "
+                + PLATFORM_MODE + " or " + VIRTUAL_MODE);
+        }
+        this.maxInFlightPerEventType = maxInFlightPerEventType;
+        this.maxInFlightPerConsumer = maxInFlightPerConsumer;
         this.pollBatchSize = pollBatchSize;
+        this.minPollDelayMs = minPollDelayMs;
+        this.maxPollDelayMs = maxPollDelayMs;
         this.schedulerEnabled = schedulerEnabled;
+        this.poller = poller;
+        localEventBuffer.onPublish(this::wake);
+    }
+
+    private static ScheduledExecutorService newPoller() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eventbus-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
+    // Starts a poll loop for every (consumer, event type) pair; the loops then pace themselves
     @Scheduled(fixedDelayString = "${eventbus.scheduler.fixed-delay:5000}")
     public void processEvents() {
         if (!schedulerEnabled) {
             return;
         }
         List<IEventConsumer> consumers = workerRegistry.getAllConsumers();
-        consumers.forEach(this::pollAndProcessEvents);
+        consumers.forEach(consumer -> consumer.getSupportedEventTypes().forEach(eventType ->
+            pollLoops.computeIfAbsent(consumer.getConsumerWorker().getId() + ":" + eventType, key -> {
+                PollLoop loop = new PollLoop(consumer, eventType);
+                loop.schedule(0);
+                return loop;
+            })));
     }
 
-    private void pollAndProcessEvents(IEventConsumer consumer) {
-        consumer.getSupportedEventTypes().forEach(eventType -> {
-            List<WorkersEvent> events = eventBusService.pollPendingEvents(eventType, pollBatchSize);
-            events.forEach(event -> executorService.submit(() -> executeConsumption(event, consumer)));
-        });
+    private void wake(String eventType) {
+        pollLoops.values().stream()
+            .filter(loop -> loop.eventType.equals(eventType))
+            .forEach(PollLoop::wake);
     }
 
-    private void executeConsumption(WorkersEvent event, IEventConsumer consumer) {
-        Long consumerWorkerId = consumer.getConsumerWorker().getId();
-        if (!eventBusService.markEventProcessing(event.getEventUuid(), consumerWorkerId)) {
+    // Returns the delay before the next poll: none after a full batch, the minimum after a partial one and a doubling
+    // backoff while the event type stays empty. The claim query only runs when the event type was signalled since the
+    // last claim or max-poll-delay has passed, which also picks up retries and released leases that are never signalled.
+    private long poll(PollLoop loop) {
+        SystemWorker worker = loop.consumer.getConsumerWorker();
+        int slots = freeSlots(worker.getId(), loop.eventType);
+        if (slots <= 0) {
+            LOGGER.debug("Skipping {} poll for {}: {} events in flight", loop.eventType, worker.getWorkerName(), inFlight.get());
+            return minPollDelayMs;
+        }
+        // Both are read before claiming so every event they announce is committed and visible to the claim; drained
+        // entries that are not claimed now (another node, no slot left) simply load their payload later
+        long signalled = eventSignal.currentSequence(loop.eventType);
+        Map<Long, WorkersEvent> published = loop.localEvents.drain().stream()
+            .collect(Collectors.toMap(WorkersEvent::getId, Function.identity(), (first, second) -> first));
+        long now = System.currentTimeMillis();
+        if (signalled == loop.seenSequence && published.isEmpty() && now - loop.lastClaimAt < maxPollDelayMs) {
+            return backoff(loop.delayMs);
+        }
+        loop.seenSequence = signalled;
+        loop.lastClaimAt = now;
+
+        long claimStarted = System.nanoTime();
+        List<ClaimedEvent> events = eventBusService.claimBatch(loop.eventType, worker.getId(), slots,
+            Duration.ofSeconds(worker.getTimeoutSeconds()));
+        meters.recordClaimQuery(loop.eventType, System.nanoTime() - claimStarted);
+        if (loop.consumer instanceof IBatchEventConsumer batchConsumer && !events.isEmpty()) {
+            submitBatch(events, published, batchConsumer);
+        } else {
+            events.forEach(event -> submit(event, published.get(event.getId()), loop.consumer));
+        }
+        if (events.size() == slots) {
+            return 0;
+        }
+        if (!events.isEmpty()) {
+            return minPollDelayMs;
+        }
+        return backoff(loop.delayMs);
+    }
+
+    private long backoff(long previousDelay) {
+        return Math.min(Math.max(previousDelay * 2, minPollDelayMs), maxPollDelayMs);
+    }
+
+    // Only the poller thread adds in-flight work, so the free slots computed here can only grow until the claim
+    // returns and every claimed event fits into the bounded queue and the consumer's permits
+    private int freeSlots(Long consumerWorkerId, String eventType) {
+        int slots = Math.min(pollBatchSize, capacity - inFlight.get());
+        slots = Math.min(slots, permits(consumerWorkerId).availablePermits());
+        if (maxInFlightPerEventType > 0) {
+            slots = Math.min(slots, maxInFlightPerEventType - inFlightCounter(eventType).get());
+        }
+        return slots;
+    }
+
+    private void submit(ClaimedEvent event, WorkersEvent published, IEventConsumer consumer) {
+        AtomicInteger eventTypeInFlight = inFlightCounter(event.getEventType());
+        Semaphore permits = permits(consumer.getConsumerWorker().getId());
+        if (!permits.tryAcquire()) {
+            reject(event, consumer);
             return;
         }
+        inFlight.incrementAndGet();
+        eventTypeInFlight.incrementAndGet();
+        try {
+            executorService.execute(() -> {
+                try {
+                    executeConsumption(event, published, consumer);
+                } finally {
+                    release(eventTypeInFlight, permits, 1);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            release(eventTypeInFlight, permits, 1);
+            reject(event, consumer);
+        }
+    }
+
+    // A batch is one task but holds a permit and an in-flight slot for each of its events
+    private void submitBatch(List<ClaimedEvent> events, Map<Long, WorkersEvent> published, IBatchEventConsumer consumer) {
+        int size = events.size();
+        AtomicInteger eventTypeInFlight = inFlightCounter(events.get(0).getEventType());
+        Semaphore permits = permits(consumer.getConsumerWorker().getId());
+        if (!permits.tryAcquire(size)) {
+            events.forEach(event -> reject(event, consumer));
+            return;
+        }
+        inFlight.addAndGet(size);
+        eventTypeInFlight.addAndGet(size);
+        try {
+            executorService.execute(() -> {
+                try {
+                    executeBatch(events, published, consumer);
+                } finally {
+                    release(eventTypeInFlight, permits, size);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            release(eventTypeInFlight, permits, size);
+            events.forEach(event -> reject(event, consumer));
+        }
+    }
+
+    private void reject(ClaimedEvent event, IEventConsumer consumer) {
+        rejectedSubmissions.incrementAndGet();
+        LOGGER.warn("Executor rejected event {} for {}; it is redelivered once its lease expires",
+            event.getEventUuid(), consumer.getConsumerWorker().getWorkerName());
+    }
+
+    private void release(AtomicInteger eventTypeInFlight, Semaphore permits, int count) {
+        eventTypeInFlight.addAndGet(-count);
+        inFlight.addAndGet(-count);
+        permits.release(count);
+    }
+
+    private Semaphore permits(Long consumerWorkerId) {
+        return consumerPermits.computeIfAbsent(consumerWorkerId, id -> new Semaphore(maxInFlightPerConsumer));
+    }
 
+    // The build targets Java 17, so the Java 21 factory is looked up at runtime
+    private static ExecutorService newVirtualThreadExecutor() {
         try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            LOGGER.warn("Virtual threads need Java 21 or later (running {}); using the platform thread pool",
+                Runtime.version());
+            return null;
+        }
+    }
+
+    private AtomicInteger inFlightCounter(String eventType) {
+        return inFlightByEventType.computeIfAbsent(eventType, type -> new AtomicInteger());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getInFlight(String eventType) {
+        AtomicInteger counter = inFlightByEventType.get(eventType);
+        return counter == null ? 0 : counter.get();
+    }
+
+    public int getQueueDepth() {
+        return executorService instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : 0;
+    }
+
+    public long getRejectedSubmissions() {
+        return rejectedSubmissions.get();
+    }
+
+    // Events published on this node arrive with their payload already in memory; everything else is loaded here
+    private void executeConsumption(ClaimedEvent claimed, WorkersEvent published, IEventConsumer consumer) {
+        Long consumerWorkerId = consumer.getConsumerWorker().getId();
+        try {
+            WorkersEvent event = published != null ? published : eventBusService.loadEvent(claimed.getId());
             ConsumptionResult result = consumer.consume(event);
+            long ackStarted = System.nanoTime();
             if (result.isSuccess()) {
-                String resultHash = idempotencyService.calculateResultHash(result.getResultData());
-                eventBusService.markEventSuccess(event.getEventUuid(), consumerWorkerId, resultHash);
+                eventBusService.markEventSuccess(claimed.getEventUuid(), consumerWorkerId,
+                    idempotencyService.resolveResultHash(result));
             } else {
                 Exception error = new RuntimeException(result.getErrorMessage() != null
                     ? result.getErrorMessage()
                     : "Event consumption failed");
-                eventBusService.markEventFailed(event.getEventUuid(), consumerWorkerId, error, result.isRetryable());
+                eventBusService.markEventFailed(claimed.getEventUuid(), consumerWorkerId, error, result.isRetryable());
+            }
+            meters.recordAcknowledgement(claimed.getEventType(), System.nanoTime() - ackStarted);
+        } catch (Exception ex) {
+            LOGGER.error("Unexpected error consuming event {} by {}", claimed.getEventUuid(), consumer.getConsumerWorker().getWorkerName(), ex);
+            eventBusService.markEventFailed(claimed.getEventUuid(), consumerWorkerId, ex, true);
+        }
+    }
+
+    // Payloads missing from the local buffer are loaded with one query and every outcome is acknowledged in one transaction
+    private void executeBatch(List<ClaimedEvent> claimed, Map<Long, WorkersEvent> published, IBatchEventConsumer consumer) {
+        Long consumerWorkerId = consumer.getConsumerWorker().getId();
+        Map<String, ConsumptionResult> results = new LinkedHashMap<>();
+        try {
+            List<WorkersEvent> events = loadBatch(claimed, published);
+            List<ConsumptionResult> consumed = consumer.consumeBatch(events);
+            if (consumed.size() != events.size()) {
+                throw new IllegalStateException("consumeBatch returned " + consumed.size() + " results for "
+                    + events.size() + " events");
+            }
+            for (int i = 0; i < events.size(); i++) {
+                results.put(events.get(i).getEventUuid(), consumed.get(i));
             }
         } catch (Exception ex) {
-            LOGGER.error("Unexpected error consuming event {} by {}", event.getEventUuid(), consumer.getConsumerWorker().getWorkerName(), ex);
-            eventBusService.markEventFailed(event.getEventUuid(), consumerWorkerId, ex, true);
+            LOGGER.error("Unexpected error consuming a batch of {} events by {}", claimed.size(),
+                consumer.getConsumerWorker().getWorkerName(), ex);
+            results.clear();
+            claimed.forEach(event -> results.put(event.getEventUuid(), ConsumptionResult.failure(ex.getMessage(), true)));
         }
+        long ackStarted = System.nanoTime();
+        eventBusService.acknowledgeBatch(consumerWorkerId, results);
+        meters.recordAcknowledgement(claimed.get(0).getEventType(), System.nanoTime() - ackStarted);
+    }
+
+    private List<WorkersEvent> loadBatch(List<ClaimedEvent> claimed, Map<Long, WorkersEvent> published) {
+        List<Long> missing = claimed.stream()
+            .map(ClaimedEvent::getId)
+            .filter(id -> !published.containsKey(id))
+            .toList();
+        Map<Long, WorkersEvent> loaded = eventBusService.loadEvents(missing).stream()
+            .collect(Collectors.toMap(WorkersEvent::getId, Function.identity()));
+        List<WorkersEvent> events = new ArrayList<>(claimed.size());
+        for (ClaimedEvent event : claimed) {
+            WorkersEvent payload = published.getOrDefault(event.getId(), loaded.get(event.getId()));
+            if (payload == null) {
+                throw new IllegalArgumentException("Event not found: " + event.getId());
+            }
+            events.add(payload);
+        }
+        return events;
     }
 
     @PreDestroy
     public void shutdown() {
+        poller.shutdownNow();
         executorService.shutdown();
         try {
             if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -94,4 +396,58 @@ public class EventBusScheduler {
             executorService.shutdownNow();
         }
     }
+
+    private final class PollLoop implements Runnable {
+
+        private final IEventConsumer consumer;
+        private final String eventType;
+        private final LocalEventBuffer.Reader localEvents;
+        private long delayMs;
+        private long seenSequence = -1;
+        private long lastClaimAt;
+        private boolean running;
+        private boolean wakeRequested;
+        private ScheduledFuture<?> next;
+
+        private PollLoop(IEventConsumer consumer, String eventType) {
+            this.consumer = consumer;
+            this.eventType = eventType;
+            this.localEvents = localEventBuffer.reader(eventType);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                running = true;
+                wakeRequested = false;
+            }
+            long nextDelay;
+            try {
+                nextDelay = poll(this);
+            } catch (Exception ex) {
+                LOGGER.error("Polling {} for {} failed", eventType, consumer.getConsumerWorker().getWorkerName(), ex);
+                nextDelay = maxPollDelayMs;
+            }
+            synchronized (this) {
+                running = false;
+                schedule(wakeRequested ? 0 : nextDelay);
+            }
+        }
+
+        private synchronized void schedule(long delay) {
+            if (poller.isShutdown()) {
+                return;
+            }
+            delayMs = delay;
+            next = poller.schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void wake() {
+            if (running) {
+                wakeRequested = true;
+            } else if (delayMs > 0 && next != null && next.cancel(false)) {
+                schedule(0);
+            }
+        }
+    }
 }
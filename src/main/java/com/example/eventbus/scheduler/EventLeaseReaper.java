@@ -0,0 +1,35 @@
+package com.example.eventbus.scheduler;
+
+import com.example.eventbus.service.IEventBusService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EventLeaseReaper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLeaseReaper.class);
+
+    private final IEventBusService eventBusService;
+    private final boolean reaperEnabled;
+
+    public EventLeaseReaper(IEventBusService eventBusService,
+                            @Value("${eventbus.reaper.enabled:true}") boolean reaperEnabled) {
+        this.eventBusService = eventBusService;
+        this.reaperEnabled = reaperEnabled;
+    }
+
+    @Scheduled(fixedDelayString = "${eventbus.reaper.fixed-delay:30000}")
+    public void releaseExpiredLeases() {
+        if (!reaperEnabled) {
+            return;
+        }
+        try {
+            eventBusService.releaseExpiredLeases();
+        } catch (Exception ex) {
+            LOGGER.error("Failed to release expired event leases", ex);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.eventbus.scheduler;
+
+import com.example.eventbus.service.IMetricsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MetricsFlusher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsFlusher.class);
+
+    private final IMetricsService metricsService;
+    private final boolean flushEnabled;
+
+    public MetricsFlusher(IMetricsService metricsService,
+                          @Value("${eventbus.metrics.flush.enabled:true}") boolean flushEnabled) {
+        this.metricsService = metricsService;
+        this.flushEnabled = flushEnabled;
+    }
+
+    @Scheduled(fixedDelayString = "${eventbus.metrics.flush.fixed-delay:5000}")
+    public void flush() {
+        if (!flushEnabled) {
+            return;
+        }
+        try {
+            metricsService.flush();
+        } catch (Exception ex) {
+            LOGGER.error("Failed to flush event metrics; the counters are retried on the next flush", ex);
+        }
+    }
+
+    // Writes what accumulated since the last scheduled flush before the context closes
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.eventbus.scheduler;
+
+import com.example.eventbus.service.IEventBusService;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SubscriptionGapSweeper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionGapSweeper.class);
+
+    private final IEventBusService eventBusService;
+    private final Duration commitGrace;
+    private final Duration lookback;
+    private final boolean sweeperEnabled;
+
+    public SubscriptionGapSweeper(IEventBusService eventBusService,
+                                  @Value("${eventbus.sweeper.commit-grace:PT1M}") Duration commitGrace,
+                                  @Value("${eventbus.sweeper.lookback:PT1H}") Duration lookback,
+                                  @Value("${eventbus.sweeper.enabled:true}") boolean sweeperEnabled) {
+        this.eventBusService = eventBusService;
+        this.commitGrace = commitGrace;
+        this.lookback = lookback;
+        this.sweeperEnabled = sweeperEnabled;
+    }
+
+    @Scheduled(fixedDelayString = "${eventbus.sweeper.fixed-delay:30000}")
+    public void recoverSkippedEvents() {
+        if (!sweeperEnabled) {
+            return;
+        }
+        try {
+            eventBusService.recoverSkippedEvents(commitGrace, lookback);
+        } catch (Exception ex) {
+            LOGGER.error("Failed to recover events skipped by subscription cursors", ex);
+        }
+    }
+}
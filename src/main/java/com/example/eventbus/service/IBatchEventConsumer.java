@@ -0,0 +1,11 @@
+package com.example.eventbus.service;
+
+import com.example.eventbus.domain.WorkersEvent;
+import com.example.eventbus.dto.ConsumptionResult;
+import java.util.List;
+
+public interface IBatchEventConsumer extends IEventConsumer {
+
+    // Returns one result per event, in the order of the given events
+    List<ConsumptionResult> consumeBatch(List<WorkersEvent> events);
+}
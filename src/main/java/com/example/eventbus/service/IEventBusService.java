@@ -1,7 +1,17 @@
 package com.example.eventbus.service;
 
 import com.example.eventbus.domain.WorkersEvent;
+import com.example.eventbus.dto.ClaimedEvent;
+import com.example.eventbus.dto.ConsumerLag;
+import com.example.eventbus.dto.ConsumptionResult;
+import com.example.eventbus.dto.EventAcknowledgement;
+import com.example.eventbus.dto.EventPublishRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface IEventBusService {
 
@@ -9,15 +19,40 @@ public interface IEventBusService {
 
     String publishEvent(Long producerWorkerId, String eventType, Object eventData, String correlationId);
 
+    List<String> publishEvents(List<EventPublishRequest> requests);
+
     List<WorkersEvent> pollPendingEvents(String eventType, int limit);
 
+    List<ClaimedEvent> claimBatch(String eventType, Long consumerWorkerId, int limit, Duration leaseDuration);
+
+    WorkersEvent loadEvent(Long eventId);
+
+    List<WorkersEvent> loadEvents(Collection<Long> eventIds);
+
     boolean markEventProcessing(String eventUuid, Long consumerWorkerId);
 
-    void markEventSuccess(String eventUuid, Long consumerWorkerId, String resultHash);
+    boolean extendLease(String eventUuid, Long consumerWorkerId, Duration leaseDuration);
+
+    int releaseExpiredLeases();
+
+    int recoverSkippedEvents(Duration commitGrace, Duration lookback);
 
-    void markEventFailed(String eventUuid, Long consumerWorkerId, Exception error, boolean retryable);
+    // Both return false when the attempt no longer holds its lease; the outcome is then discarded
+    boolean markEventSuccess(String eventUuid, Long consumerWorkerId, String resultHash);
+
+    boolean markEventFailed(String eventUuid, Long consumerWorkerId, Exception error, boolean retryable);
+
+    int markEventsSuccess(Collection<EventAcknowledgement> acknowledgements);
+
+    int markEventsFailed(Collection<EventAcknowledgement> acknowledgements);
+
+    void acknowledgeBatch(Long consumerWorkerId, Map<String, ConsumptionResult> resultsByEventUuid);
 
     void replayEvent(String eventUuid);
 
     int archiveOldEvents(int olderThanDays);
+
+    List<ConsumerLag> getConsumerLag();
+
+    Optional<Instant> findOldestPending(String eventType, Long consumerWorkerId);
 }
@@ -1,6 +1,8 @@
 package com.example.eventbus.service;
 
 import com.example.eventbus.domain.SystemWorker;
+import com.example.eventbus.dto.EventPublishRequest;
+import java.util.List;
 
 public interface IEventProducer {
 
@@ -8,5 +10,7 @@ public interface IEventProducer {
 
     String publishEvent(String eventType, Object eventData, String correlationId);
 
+    List<String> publishEvents(List<EventPublishRequest> requests);
+
     SystemWorker getProducerWorker();
 }
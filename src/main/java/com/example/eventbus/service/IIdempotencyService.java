@@ -1,12 +1,24 @@
 package com.example.eventbus.service;
 
+import com.example.eventbus.dto.ConsumptionResult;
+import java.util.Collection;
+
 public interface IIdempotencyService {
 
     String generateIdempotencyKey(String eventUuid, Long consumerWorkerId);
 
+    // Authoritative: always asks the database, wherever the consumption succeeded
     boolean isAlreadyProcessed(String idempotencyKey);
 
+    // For a consumer checking an event this node has just claimed. Only keys that succeeded on this node are known
+    // without a query, so a key that succeeded elsewhere may be reported as not processed
+    boolean isClaimedAlreadyProcessed(String idempotencyKey);
+
     void recordProcessing(String idempotencyKey, String resultHash);
 
+    void rememberSucceeded(Collection<String> idempotencyKeys);
+
     String calculateResultHash(Object result);
+
+    String resolveResultHash(ConsumptionResult result);
 }
@@ -2,6 +2,7 @@ package com.example.eventbus.service;
 
 import com.example.eventbus.domain.EventMetrics;
 import com.example.eventbus.domain.EventStatus;
+import com.example.eventbus.dto.LatencyPercentiles;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -9,7 +10,15 @@ public interface IMetricsService {
 
     void recordEventProcessed(String eventType, Long consumerWorkerId, EventStatus status, long processingTimeMs);
 
+    void recordQueueWait(String eventType, Long consumerWorkerId, long queueWaitMs);
+
+    int flush();
+
     List<EventMetrics> getMetrics(String eventType, LocalDate fromDate, LocalDate toDate);
 
     long getDailyEventCount(String eventType, LocalDate date);
+
+    LatencyPercentiles getProcessingPercentiles(String eventType, EventStatus status, LocalDate fromDate, LocalDate toDate);
+
+    LatencyPercentiles getQueueWaitPercentiles(String eventType, LocalDate fromDate, LocalDate toDate);
 }
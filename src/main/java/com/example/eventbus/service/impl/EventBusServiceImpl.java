@@ -1,54 +1,114 @@
 package com.example.eventbus.service.impl;
 
+import com.example.eventbus.blob.BlobStore;
+import com.example.eventbus.codec.EventPayloadCodecs;
+import com.example.eventbus.dispatch.EventSignal;
+import com.example.eventbus.dispatch.LocalEventBuffer;
 import com.example.eventbus.domain.EventConsumption;
 import com.example.eventbus.domain.EventStatus;
+import com.example.eventbus.domain.EventSubscription;
 import com.example.eventbus.domain.SystemWorker;
 import com.example.eventbus.domain.WorkersEvent;
+import com.example.eventbus.domain.id.UuidV7Generator;
 import com.example.eventbus.domain.repository.EventConsumptionRepository;
+import com.example.eventbus.domain.repository.EventSubscriptionRepository;
 import com.example.eventbus.domain.repository.SystemWorkerRepository;
 import com.example.eventbus.domain.repository.WorkersEventRepository;
+import com.example.eventbus.dto.ClaimedEvent;
+import com.example.eventbus.dto.ConsumerLag;
+import com.example.eventbus.dto.ConsumptionResult;
+import com.example.eventbus.dto.EventAcknowledgement;
+import com.example.eventbus.dto.EventPublishRequest;
+import com.example.eventbus.metrics.ConsumerLagTracker;
+import com.example.eventbus.metrics.EventBusMeters;
 import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IIdempotencyService;
 import com.example.eventbus.service.IMetricsService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class EventBusServiceImpl implements IEventBusService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EventBusServiceImpl.class);
 
+    private static final Set<EventStatus> REDELIVERABLE_STATUSES = EnumSet.of(EventStatus.PENDING, EventStatus.FAILED_RETRYABLE);
+    private static final Set<EventStatus> OPEN_STATUSES =
+        EnumSet.of(EventStatus.PENDING, EventStatus.PROCESSING, EventStatus.FAILED_RETRYABLE);
+    private static final String LEASE_EXPIRED_MESSAGE = "Lease expired before consumption completed";
+
     private final WorkersEventRepository workersEventRepository;
     private final EventConsumptionRepository eventConsumptionRepository;
+    private final EventSubscriptionRepository eventSubscriptionRepository;
     private final SystemWorkerRepository systemWorkerRepository;
     private final IMetricsService metricsService;
     private final IIdempotencyService idempotencyService;
-    private final ObjectMapper objectMapper;
+    private final EventPayloadCodecs payloadCodecs;
+    private final LocalEventBuffer localEventBuffer;
+    private final EventSignal eventSignal;
+    private final EventBusMeters meters;
+    private final ConsumerLagTracker lagTracker;
+    private final BlobStore blobStore;
+    private final String leaseOwner;
+    private final Duration maxRetryDelay;
+    private final Duration blobGcGrace;
+    private final UuidV7Generator uuidGenerator = new UuidV7Generator();
 
     public EventBusServiceImpl(WorkersEventRepository workersEventRepository,
                                EventConsumptionRepository eventConsumptionRepository,
+                               EventSubscriptionRepository eventSubscriptionRepository,
                                SystemWorkerRepository systemWorkerRepository,
                                IMetricsService metricsService,
                                IIdempotencyService idempotencyService,
-                               ObjectMapper objectMapper) {
+                               EventPayloadCodecs payloadCodecs,
+                               LocalEventBuffer localEventBuffer,
+                               EventSignal eventSignal,
+                               EventBusMeters meters,
+                               ConsumerLagTracker lagTracker,
+                               BlobStore blobStore,
+                               @Value("${eventbus.node-id:}") String nodeId,
+                               @Value("${eventbus.retry.max-delay:PT1H}") Duration maxRetryDelay,
+                               @Value("${eventbus.blob.gc-grace:PT1H}") Duration blobGcGrace) {
         this.workersEventRepository = workersEventRepository;
         this.eventConsumptionRepository = eventConsumptionRepository;
+        this.eventSubscriptionRepository = eventSubscriptionRepository;
         this.systemWorkerRepository = systemWorkerRepository;
         this.metricsService = metricsService;
         this.idempotencyService = idempotencyService;
-        this.objectMapper = objectMapper;
+        this.payloadCodecs = payloadCodecs;
+        this.localEventBuffer = localEventBuffer;
+        this.eventSignal = eventSignal;
+        this.meters = meters;
+        this.lagTracker = lagTracker;
+        this.blobStore = blobStore;
+        this.leaseOwner = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        this.maxRetryDelay = maxRetryDelay;
+        this.blobGcGrace = blobGcGrace;
     }
 
     @Override
@@ -60,32 +120,85 @@ public class EventBusServiceImpl implements IEventBusService {
     @Override
     @Transactional
     public String publishEvent(Long producerWorkerId, String eventType, Object eventData, String correlationId) {
-        String eventUuid = UUID.randomUUID().toString();
-        WorkersEvent event = new WorkersEvent();
-        event.setEventUuid(eventUuid);
-        event.setEventType(eventType);
-        event.setEventVersion(1);
-        event.setEventData(writeValue(eventData));
-        event.setCorrelationId(correlationId);
-        event.setStatus(EventStatus.PENDING);
+        WorkersEvent event = newEvent(eventType, 1, eventData, correlationId);
         if (producerWorkerId != null) {
             SystemWorker worker = systemWorkerRepository.findById(producerWorkerId)
                 .orElseThrow(() -> new IllegalArgumentException("Producer worker not found: " + producerWorkerId));
             event.setProducerWorker(worker);
         }
         workersEventRepository.save(event);
-        return eventUuid;
+        dispatchAfterCommit(List.of(event));
+        return event.getEventUuid();
+    }
+
+    @Override
+    @Transactional
+    public List<String> publishEvents(List<EventPublishRequest> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, SystemWorker> producers = resolveProducers(requests);
+        List<WorkersEvent> events = new ArrayList<>(requests.size());
+        for (EventPublishRequest request : requests) {
+            WorkersEvent event = newEvent(request.getEventType(), request.getEventVersion(), request.getEventData(),
+                request.getCorrelationId());
+            event.setPartNumber(request.getPartNumber());
+            event.setPartsCount(request.getPartsCount());
+            event.setProducerWorker(request.getProducerWorkerId() != null ? producers.get(request.getProducerWorkerId()) : null);
+            events.add(event);
+        }
+        workersEventRepository.saveAll(events);
+        dispatchAfterCommit(events);
+        return events.stream().map(WorkersEvent::getEventUuid).toList();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<WorkersEvent> pollPendingEvents(String eventType, int limit) {
-        List<WorkersEvent> events = workersEventRepository
-            .findTop100ByEventTypeAndStatusOrderByCreatedAtAsc(eventType, EventStatus.PENDING);
-        if (events.size() > limit) {
-            return new ArrayList<>(events.subList(0, limit));
+        if (limit <= 0) {
+            return Collections.emptyList();
         }
-        return events;
+        return workersEventRepository.findByEventTypeAndStatusOrderByCreatedAtAsc(eventType, EventStatus.PENDING,
+            PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional
+    public List<ClaimedEvent> claimBatch(String eventType, Long consumerWorkerId, int limit, Duration leaseDuration) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        Instant now = Instant.now();
+        Instant leaseExpiresAt = now.plus(leaseDuration);
+
+        List<ClaimedEvent> claimed = new ArrayList<>(claimRedeliveries(eventType, consumerWorkerId, limit, now, leaseExpiresAt));
+        int remaining = limit - claimed.size();
+        if (remaining > 0) {
+            claimed.addAll(claimUndelivered(eventType, consumerWorkerId, remaining, now, leaseExpiresAt));
+        }
+        if (!claimed.isEmpty()) {
+            LOGGER.debug("Claimed {} {} events for consumer {}", claimed.size(), eventType, consumerWorkerId);
+        }
+        meters.claimed(eventType, claimed.size());
+        claimed.forEach(event -> metricsService.recordQueueWait(eventType, consumerWorkerId,
+            now.toEpochMilli() - event.getCreatedAt().toEpochMilli()));
+        return claimed;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public WorkersEvent loadEvent(Long eventId) {
+        return workersEventRepository.findById(eventId)
+            .orElseThrow(() -> new IllegalArgumentException("Event not found: " + eventId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkersEvent> loadEvents(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return workersEventRepository.findAllById(eventIds);
     }
 
     @Override
@@ -98,96 +211,211 @@ public class EventBusServiceImpl implements IEventBusService {
         }
 
         WorkersEvent event = optional.get();
-        if (event.getStatus() != EventStatus.PENDING && event.getStatus() != EventStatus.FAILED_RETRYABLE) {
+        if (event.getStatus() == EventStatus.ARCHIVED) {
             return false;
         }
 
-        event.setStatus(EventStatus.PROCESSING);
-        event.setProcessingStartedAt(Instant.now());
-        workersEventRepository.save(event);
+        SystemWorker worker = systemWorkerRepository.findById(consumerWorkerId)
+            .orElseThrow(() -> new IllegalArgumentException("Consumer worker not found: " + consumerWorkerId));
+        Instant now = Instant.now();
+        Instant leaseExpiresAt = now.plusSeconds(worker.getTimeoutSeconds());
 
         Optional<EventConsumption> existingConsumption = eventConsumptionRepository
-            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId);
+            .lockByEventUuidAndConsumerWorker(eventUuid, consumerWorkerId);
 
         if (existingConsumption.isEmpty()) {
-            EventConsumption consumption = new EventConsumption();
-            consumption.setEventUuid(eventUuid);
-            SystemWorker worker = systemWorkerRepository.findById(consumerWorkerId)
-                .orElseThrow(() -> new IllegalArgumentException("Consumer worker not found: " + consumerWorkerId));
-            consumption.setConsumerWorker(worker);
-            consumption.setStatus(EventStatus.PROCESSING);
-            consumption.setAttemptNumber(1);
-            consumption.setProcessingStartedAt(Instant.now());
-            consumption.setIdempotencyKey(idempotencyService.generateIdempotencyKey(eventUuid, consumerWorkerId));
+            eventConsumptionRepository.save(newConsumption(eventUuid, event.getEventType(), worker, now, leaseExpiresAt));
+        } else {
+            EventConsumption consumption = existingConsumption.get();
+            if (!REDELIVERABLE_STATUSES.contains(consumption.getStatus())) {
+                return false;
+            }
+            startAttempt(consumption, now, leaseExpiresAt);
             eventConsumptionRepository.save(consumption);
-            return true;
         }
+        metricsService.recordQueueWait(event.getEventType(), consumerWorkerId,
+            now.toEpochMilli() - event.getCreatedAt().toEpochMilli());
+        return true;
+    }
 
-        EventConsumption consumption = existingConsumption.get();
-        if (consumption.getStatus() == EventStatus.PROCESSING) {
+    @Override
+    @Transactional
+    public boolean extendLease(String eventUuid, Long consumerWorkerId, Duration leaseDuration) {
+        Instant now = Instant.now();
+        int updated = eventConsumptionRepository.extendLease(eventUuid, consumerWorkerId, leaseOwner,
+            now.plus(leaseDuration), now);
+        if (updated == 0) {
+            LOGGER.warn("Lease on event {} for consumer {} is no longer held by {}", eventUuid, consumerWorkerId, leaseOwner);
             return false;
         }
-
-        consumption.setStatus(EventStatus.PROCESSING);
-        consumption.setProcessingStartedAt(Instant.now());
-        consumption.setAttemptNumber(consumption.getAttemptNumber() == null ? 1 : consumption.getAttemptNumber() + 1);
-        if (consumption.getIdempotencyKey() == null) {
-            consumption.setIdempotencyKey(idempotencyService.generateIdempotencyKey(eventUuid, consumerWorkerId));
-        }
-        eventConsumptionRepository.save(consumption);
         return true;
     }
 
     @Override
     @Transactional
-    public void markEventSuccess(String eventUuid, Long consumerWorkerId, String resultHash) {
-        WorkersEvent event = workersEventRepository.findByEventUuid(eventUuid)
-            .orElseThrow(() -> new IllegalArgumentException("Event not found: " + eventUuid));
+    public int releaseExpiredLeases() {
+        Instant now = Instant.now();
+        int deadLettered = eventConsumptionRepository.deadLetterExpiredLeases(now, LEASE_EXPIRED_MESSAGE);
+        int released = eventConsumptionRepository.releaseExpiredLeases(now, LEASE_EXPIRED_MESSAGE);
+        meters.leasesExpired(released, deadLettered);
+        if (deadLettered > 0) {
+            LOGGER.warn("Moved {} consumptions with expired leases and no retries left to FAILED_PERMANENT", deadLettered);
+        }
+        if (released > 0) {
+            LOGGER.warn("Released {} consumptions with expired leases", released);
+        }
+        return deadLettered + released;
+    }
 
-        event.setStatus(EventStatus.SUCCESS);
-        event.setProcessedAt(Instant.now());
-        event.setRetryCount(0);
-        workersEventRepository.save(event);
+    // A cursor range is verified once it is older than commitGrace; events created within lookback are re-checked on
+    // every sweep, so a transaction that commits after its range was verified is still delivered
+    @Override
+    @Transactional
+    public int recoverSkippedEvents(Duration commitGrace, Duration lookback) {
+        Instant now = Instant.now();
+        Instant horizon = now.minus(commitGrace);
+        Instant since = now.minus(lookback);
+        int recovered = 0;
+        for (EventSubscription subscription : eventSubscriptionRepository.lockAll()) {
+            Long consumerWorkerId = subscription.getConsumerWorker().getId();
+            if (subscription.getVerifiedEventId() > 0) {
+                recovered += queuePending(subscription, workersEventRepository.findUndeliveredCreatedSince(
+                    subscription.getEventType(), since, subscription.getVerifiedEventId(), consumerWorkerId), now);
+            }
+            if (subscription.getVerificationTargetId() != null
+                && subscription.getVerificationTargetAt().isBefore(horizon)) {
+                recovered += queuePending(subscription, workersEventRepository.findUndeliveredBetween(
+                    subscription.getEventType(), subscription.getVerifiedEventId(),
+                    subscription.getVerificationTargetId(), consumerWorkerId), now);
+                subscription.setVerifiedEventId(subscription.getVerificationTargetId());
+                subscription.setVerificationTargetId(null);
+                subscription.setVerificationTargetAt(null);
+            }
+            if (subscription.getVerificationTargetId() == null
+                && subscription.getLastDispatchedEventId() > subscription.getVerifiedEventId()) {
+                subscription.setVerificationTargetId(subscription.getLastDispatchedEventId());
+                subscription.setVerificationTargetAt(now);
+            }
+        }
+        if (recovered > 0) {
+            LOGGER.warn("Recovered {} events skipped by subscription cursors", recovered);
+        }
+        return recovered;
+    }
 
-        EventConsumption consumption = eventConsumptionRepository
-            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
-            .orElseThrow(() -> new IllegalStateException("Consumption record missing for event: " + eventUuid));
-        consumption.setStatus(EventStatus.SUCCESS);
-        consumption.setCompletedAt(Instant.now());
-        consumption.setResultHash(resultHash);
-        eventConsumptionRepository.save(consumption);
+    @Override
+    @Transactional
+    public boolean markEventSuccess(String eventUuid, Long consumerWorkerId, String resultHash) {
+        EventConsumption consumption = findConsumption(eventUuid, consumerWorkerId);
+        Instant now = Instant.now();
+        if (eventConsumptionRepository.markSucceeded(List.of(consumption.getId()), resultHash, leaseOwner, now) == 0) {
+            warnLeaseLost(eventUuid, consumerWorkerId);
+            return false;
+        }
+        recordCompletions(Map.of(consumption, EventStatus.SUCCESS), now);
+        rememberSucceeded(List.of(consumption));
+        return true;
+    }
 
-        metricsService.recordEventProcessed(event.getEventType(), consumerWorkerId, EventStatus.SUCCESS,
-            computeProcessingDuration(consumption));
+    // The outcome is computed from the loaded row but written by the lease-guarded update, so a stale attempt never
+    // touches a consumption that was released or re-claimed in the meantime
+    @Override
+    @Transactional
+    public boolean markEventFailed(String eventUuid, Long consumerWorkerId, Exception error, boolean retryable) {
+        EventConsumption consumption = findConsumption(eventUuid, consumerWorkerId);
+        Instant now = Instant.now();
+        EventStatus status = failureStatus(consumption, retryable);
+        Instant nextAttemptAt = status == EventStatus.FAILED_RETRYABLE
+            ? now.plus(computeRetryDelay(consumption.getConsumerWorker(), consumption.getAttemptNumber()))
+            : null;
+        if (eventConsumptionRepository.markFailed(List.of(consumption.getId()), status, error.getMessage(),
+                getStackTrace(error), nextAttemptAt, leaseOwner, now) == 0) {
+            warnLeaseLost(eventUuid, consumerWorkerId);
+            return false;
+        }
+        countFailure(consumption.getEventType(), status);
+        recordCompletions(Map.of(consumption, status), now);
+        return true;
     }
 
+    // One select per consumer resolves the rows and one bulk update per distinct result hash writes them, replacing
+    // the per-event lookups and saves
     @Override
     @Transactional
-    public void markEventFailed(String eventUuid, Long consumerWorkerId, Exception error, boolean retryable) {
-        WorkersEvent event = workersEventRepository.findByEventUuid(eventUuid)
-            .orElseThrow(() -> new IllegalArgumentException("Event not found: " + eventUuid));
-        EventStatus status = retryable ? EventStatus.FAILED_RETRYABLE : EventStatus.FAILED_PERMANENT;
-        event.setStatus(status);
-        event.setFailedAt(Instant.now());
-        event.setLastErrorMessage(error.getMessage());
-        event.setLastErrorStackTrace(getStackTrace(error));
-        if (retryable) {
-            event.setRetryCount(event.getRetryCount() + 1);
+    public int markEventsSuccess(Collection<EventAcknowledgement> acknowledgements) {
+        if (acknowledgements.isEmpty()) {
+            return 0;
         }
-        workersEventRepository.save(event);
+        Map<EventConsumption, EventAcknowledgement> resolved = resolveLeasedConsumptions(acknowledgements);
+        Instant now = Instant.now();
+        Map<String, List<Long>> idsByResultHash = new HashMap<>();
+        resolved.forEach((consumption, acknowledgement) -> idsByResultHash
+            .computeIfAbsent(acknowledgement.getResultHash(), hash -> new ArrayList<>())
+            .add(consumption.getId()));
+        int updated = 0;
+        for (Map.Entry<String, List<Long>> entry : idsByResultHash.entrySet()) {
+            updated += eventConsumptionRepository.markSucceeded(entry.getValue(), entry.getKey(), leaseOwner, now);
+        }
+        warnLostLeases(resolved.size(), updated);
+        Map<EventConsumption, EventStatus> statuses = new HashMap<>();
+        resolved.keySet().forEach(consumption -> statuses.put(consumption, EventStatus.SUCCESS));
+        recordCompletions(statuses, now);
+        rememberSucceeded(resolved.keySet());
+        return updated;
+    }
 
-        EventConsumption consumption = eventConsumptionRepository
-            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
-            .orElseThrow(() -> new IllegalStateException("Consumption record missing for event: " + eventUuid));
-        consumption.setStatus(status);
-        consumption.setFailedAt(Instant.now());
-        consumption.setCompletedAt(Instant.now());
-        consumption.setErrorMessage(error.getMessage());
-        consumption.setErrorStackTrace(getStackTrace(error));
-        eventConsumptionRepository.save(consumption);
+    // Failures sharing status, attempt number and message are written by one bulk update; such a group also shares
+    // its retry jitter, which is harmless because its events were claimed and consumed together in the first place
+    @Override
+    @Transactional
+    public int markEventsFailed(Collection<EventAcknowledgement> acknowledgements) {
+        if (acknowledgements.isEmpty()) {
+            return 0;
+        }
+        Map<EventConsumption, EventAcknowledgement> resolved = resolveLeasedConsumptions(acknowledgements);
+        Instant now = Instant.now();
+        Map<FailureGroup, List<Long>> idsByGroup = new HashMap<>();
+        Map<EventConsumption, EventStatus> statuses = new HashMap<>();
+        resolved.forEach((consumption, acknowledgement) -> {
+            EventStatus status = failureStatus(consumption, acknowledgement.isRetryable());
+            boolean retry = status == EventStatus.FAILED_RETRYABLE;
+            FailureGroup group = new FailureGroup(status, consumption.getConsumerWorker(),
+                retry ? consumption.getAttemptNumber() : null, acknowledgement.getErrorMessage());
+            idsByGroup.computeIfAbsent(group, key -> new ArrayList<>()).add(consumption.getId());
+            statuses.put(consumption, status);
+        });
+        statuses.forEach((consumption, status) -> countFailure(consumption.getEventType(), status));
+        int updated = 0;
+        for (Map.Entry<FailureGroup, List<Long>> entry : idsByGroup.entrySet()) {
+            FailureGroup group = entry.getKey();
+            Instant nextAttemptAt = group.attemptNumber() != null
+                ? now.plus(computeRetryDelay(group.worker(), group.attemptNumber()))
+                : null;
+            updated += eventConsumptionRepository.markFailed(entry.getValue(), group.status(), group.errorMessage(),
+                null, nextAttemptAt, leaseOwner, now);
+        }
+        warnLostLeases(resolved.size(), updated);
+        recordCompletions(statuses, now);
+        return updated;
+    }
 
-        metricsService.recordEventProcessed(event.getEventType(), consumerWorkerId, status,
-            computeProcessingDuration(consumption));
+    @Override
+    @Transactional
+    public void acknowledgeBatch(Long consumerWorkerId, Map<String, ConsumptionResult> resultsByEventUuid) {
+        List<EventAcknowledgement> succeeded = new ArrayList<>();
+        List<EventAcknowledgement> failed = new ArrayList<>();
+        resultsByEventUuid.forEach((eventUuid, result) -> {
+            if (result.isSuccess()) {
+                succeeded.add(EventAcknowledgement.success(eventUuid, consumerWorkerId,
+                    idempotencyService.resolveResultHash(result)));
+            } else {
+                failed.add(EventAcknowledgement.failure(eventUuid, consumerWorkerId,
+                    result.getErrorMessage() != null ? result.getErrorMessage() : "Event consumption failed",
+                    result.isRetryable()));
+            }
+        });
+        markEventsSuccess(succeeded);
+        markEventsFailed(failed);
     }
 
     @Override
@@ -195,50 +423,369 @@ public class EventBusServiceImpl implements IEventBusService {
     public void replayEvent(String eventUuid) {
         WorkersEvent event = workersEventRepository.findByEventUuid(eventUuid)
             .orElseThrow(() -> new IllegalArgumentException("Event not found: " + eventUuid));
+        if (event.getPayloadRef() != null && !blobStore.exists(event.getPayloadRef())) {
+            throw new IllegalStateException("Payload of event " + eventUuid + " was removed when it was archived");
+        }
         event.setStatus(EventStatus.PENDING);
         event.setRetryCount(0);
         event.setProcessingStartedAt(null);
         event.setProcessedAt(null);
         event.setFailedAt(null);
+        event.setArchivedAt(null);
         event.setLastErrorMessage(null);
         event.setLastErrorStackTrace(null);
         workersEventRepository.save(event);
+        eventConsumptionRepository.resetForReplay(eventUuid, Instant.now());
     }
 
     @Override
     @Transactional
     public int archiveOldEvents(int olderThanDays) {
         Instant threshold = LocalDate.now(ZoneOffset.UTC).minusDays(olderThanDays).atStartOfDay().toInstant(ZoneOffset.UTC);
-        List<Long> ids = workersEventRepository.findByStatusAndCreatedAtBefore(EventStatus.SUCCESS, threshold).stream()
-            .map(WorkersEvent::getId)
-            .collect(Collectors.toCollection(ArrayList::new));
-        ids.addAll(workersEventRepository.findByStatusAndCreatedAtBefore(EventStatus.FAILED_PERMANENT, threshold).stream()
-            .map(WorkersEvent::getId)
-            .toList());
+        List<Long> ids = workersEventRepository.findArchivableIds(threshold, OPEN_STATUSES);
         if (ids.isEmpty()) {
             return 0;
         }
-        int updated = workersEventRepository.bulkUpdateStatus(EventStatus.ARCHIVED, Instant.now(), ids);
+        Instant now = Instant.now();
+        List<String> payloadRefs = new ArrayList<>(workersEventRepository.findPayloadRefsByIdIn(ids));
+        int updated = workersEventRepository.bulkUpdateStatus(EventStatus.ARCHIVED, now, ids);
+        if (!payloadRefs.isEmpty()) {
+            payloadRefs.removeAll(workersEventRepository.findReferencedPayloadRefs(payloadRefs));
+            afterCommit(() -> deleteBlobs(payloadRefs, now.minus(blobGcGrace)));
+        }
         LOGGER.info("Archived {} events older than {} days", updated, olderThanDays);
         return updated;
     }
 
-    private String writeValue(Object eventData) {
-        if (eventData == null) {
-            return null;
+    // Exact backlog per subscription: open consumptions plus the events past its cursor. Counting the cursor range reads
+    // the whole backlog, so this is for the periodic reconciliation of ConsumerLagTracker, not for every scrape
+    @Override
+    @Transactional(readOnly = true)
+    public List<ConsumerLag> getConsumerLag() {
+        Map<LagKey, ConsumerLag> open = new HashMap<>();
+        eventConsumptionRepository.summarizeByStatusIn(OPEN_STATUSES)
+            .forEach(lag -> open.put(new LagKey(lag.getEventType(), lag.getConsumerWorkerId()), lag));
+        List<ConsumerLag> lags = new ArrayList<>();
+        for (EventSubscription subscription : eventSubscriptionRepository.findAll()) {
+            String eventType = subscription.getEventType();
+            Long consumerWorkerId = subscription.getConsumerWorker().getId();
+            ConsumerLag consumptions = open.remove(new LagKey(eventType, consumerWorkerId));
+            long undelivered = workersEventRepository.countByEventTypeAndIdGreaterThan(eventType,
+                subscription.getLastDispatchedEventId());
+            lags.add(new ConsumerLag(eventType, consumerWorkerId,
+                undelivered + (consumptions != null ? consumptions.getPending() : 0L),
+                earliest(consumptions != null ? consumptions.getOldestPendingAt() : null,
+                    findFirstUndeliveredCreatedAt(subscription))));
+        }
+        lags.addAll(open.values());
+        return lags;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Instant> findOldestPending(String eventType, Long consumerWorkerId) {
+        Instant oldestOpen = eventConsumptionRepository.findOldestEventCreatedAt(consumerWorkerId, eventType, OPEN_STATUSES);
+        Instant oldestUndelivered = eventSubscriptionRepository.findByConsumerWorker_IdAndEventType(consumerWorkerId, eventType)
+            .map(this::findFirstUndeliveredCreatedAt)
+            .orElse(null);
+        return Optional.ofNullable(earliest(oldestOpen, oldestUndelivered));
+    }
+
+    private List<ClaimedEvent> claimRedeliveries(String eventType, Long consumerWorkerId, int limit,
+                                                 Instant now, Instant leaseExpiresAt) {
+        List<EventConsumption> redeliveries = eventConsumptionRepository
+            .lockDueRedeliveries(consumerWorkerId, eventType, REDELIVERABLE_STATUSES, now, PageRequest.of(0, limit));
+        if (redeliveries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        redeliveries.forEach(consumption -> startAttempt(consumption, now, leaseExpiresAt));
+        return workersEventRepository.findClaimedByEventUuidIn(redeliveries.stream().map(EventConsumption::getEventUuid).toList());
+    }
+
+    private List<ClaimedEvent> claimUndelivered(String eventType, Long consumerWorkerId, int limit,
+                                                Instant now, Instant leaseExpiresAt) {
+        Optional<EventSubscription> subscription = lockSubscription(eventType, consumerWorkerId);
+        if (subscription.isEmpty()) {
+            return Collections.emptyList();
+        }
+        EventSubscription cursor = subscription.get();
+        List<ClaimedEvent> events = workersEventRepository.findUndelivered(eventType, cursor.getLastDispatchedEventId(),
+            consumerWorkerId, PageRequest.of(0, limit));
+        if (events.isEmpty()) {
+            return events;
+        }
+
+        SystemWorker worker = systemWorkerRepository.getReferenceById(consumerWorkerId);
+        List<EventConsumption> consumptions = new ArrayList<>(events.size());
+        for (ClaimedEvent event : events) {
+            consumptions.add(newConsumption(event.getEventUuid(), event.getEventType(), worker, now, leaseExpiresAt));
+        }
+        eventConsumptionRepository.saveAll(consumptions);
+        cursor.setLastDispatchedEventId(events.get(events.size() - 1).getId());
+        return events;
+    }
+
+    private Optional<EventSubscription> lockSubscription(String eventType, Long consumerWorkerId) {
+        Optional<EventSubscription> locked = eventSubscriptionRepository
+            .lockByConsumerWorkerAndEventType(consumerWorkerId, eventType);
+        if (locked.isPresent() || eventSubscriptionRepository.existsByConsumerWorker_IdAndEventType(consumerWorkerId, eventType)) {
+            return locked;
+        }
+        SystemWorker worker = systemWorkerRepository.getReferenceById(consumerWorkerId);
+        return Optional.of(eventSubscriptionRepository.saveAndFlush(new EventSubscription(worker, eventType)));
+    }
+
+    private int queuePending(EventSubscription subscription, List<ClaimedEvent> skipped, Instant now) {
+        if (skipped.isEmpty()) {
+            return 0;
+        }
+        List<EventConsumption> consumptions = new ArrayList<>(skipped.size());
+        for (ClaimedEvent event : skipped) {
+            EventConsumption consumption = newConsumption(event.getEventUuid(), event.getEventType(),
+                subscription.getConsumerWorker(), now, null);
+            consumption.setStatus(EventStatus.PENDING);
+            consumption.setAttemptNumber(0);
+            consumption.setProcessingStartedAt(null);
+            consumption.setLeaseOwner(null);
+            consumption.setNextAttemptAt(now);
+            consumptions.add(consumption);
+        }
+        eventConsumptionRepository.saveAll(consumptions);
+        return consumptions.size();
+    }
+
+    private EventConsumption findConsumption(String eventUuid, Long consumerWorkerId) {
+        return eventConsumptionRepository.findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
+            .orElseThrow(() -> new IllegalStateException("Consumption record missing for event: " + eventUuid));
+    }
+
+    private EventStatus failureStatus(EventConsumption consumption, boolean retryable) {
+        SystemWorker worker = consumption.getConsumerWorker();
+        if (retryable && consumption.getAttemptNumber() <= worker.getMaxRetries()) {
+            return EventStatus.FAILED_RETRYABLE;
+        }
+        if (retryable) {
+            LOGGER.warn("Event {} exhausted {} retries for consumer {}, moving to FAILED_PERMANENT",
+                consumption.getEventUuid(), worker.getMaxRetries(), worker.getId());
+        }
+        return EventStatus.FAILED_PERMANENT;
+    }
+
+    private Map<EventConsumption, EventAcknowledgement> resolveConsumptions(
+            Collection<EventAcknowledgement> acknowledgements) {
+        Map<Long, Map<String, EventAcknowledgement>> byConsumer = acknowledgements.stream()
+            .collect(Collectors.groupingBy(EventAcknowledgement::getConsumerWorkerId,
+                Collectors.toMap(EventAcknowledgement::getEventUuid, Function.identity(), (first, second) -> second)));
+        Map<EventConsumption, EventAcknowledgement> resolved = new HashMap<>();
+        byConsumer.forEach((consumerWorkerId, byEventUuid) -> {
+            List<EventConsumption> consumptions = eventConsumptionRepository
+                .findByEventUuidInAndConsumerWorker_Id(byEventUuid.keySet(), consumerWorkerId);
+            if (consumptions.size() != byEventUuid.size()) {
+                Set<String> found = consumptions.stream().map(EventConsumption::getEventUuid).collect(Collectors.toSet());
+                String missing = byEventUuid.keySet().stream().filter(uuid -> !found.contains(uuid)).findFirst().orElse(null);
+                throw new IllegalStateException("Consumption record missing for event: " + missing);
+            }
+            consumptions.forEach(consumption -> resolved.put(consumption, byEventUuid.get(consumption.getEventUuid())));
+        });
+        return resolved;
+    }
+
+    // Outcomes of attempts whose lease expired or was taken over are dropped here; the guarded bulk updates still skip
+    // any consumption that loses its lease between this read and the write
+    private Map<EventConsumption, EventAcknowledgement> resolveLeasedConsumptions(
+            Collection<EventAcknowledgement> acknowledgements) {
+        Map<EventConsumption, EventAcknowledgement> resolved = resolveConsumptions(acknowledgements);
+        resolved.keySet().removeIf(consumption -> {
+            if (holdsLease(consumption)) {
+                return false;
+            }
+            warnLeaseLost(consumption.getEventUuid(), consumption.getConsumerWorker().getId());
+            return true;
+        });
+        return resolved;
+    }
+
+    private boolean holdsLease(EventConsumption consumption) {
+        return consumption.getStatus() == EventStatus.PROCESSING && leaseOwner.equals(consumption.getLeaseOwner());
+    }
+
+    private void warnLeaseLost(String eventUuid, Long consumerWorkerId) {
+        LOGGER.warn("Lease on event {} for consumer {} is no longer held by {}; its outcome was discarded",
+            eventUuid, consumerWorkerId, leaseOwner);
+    }
+
+    private void warnLostLeases(int expected, int updated) {
+        if (updated < expected) {
+            LOGGER.warn("{} of {} acknowledgements lost their lease before they were written", expected - updated, expected);
+        }
+    }
+
+    // Ids grow with creation time, so the first event past the cursor is the oldest one no consumption exists for yet
+    private Instant findFirstUndeliveredCreatedAt(EventSubscription subscription) {
+        List<Instant> first = workersEventRepository.findCreatedAtAfter(subscription.getEventType(),
+            subscription.getLastDispatchedEventId(), PageRequest.of(0, 1));
+        return first.isEmpty() ? null : first.get(0);
+    }
+
+    private static Instant earliest(Instant first, Instant second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    private void rememberSucceeded(Collection<EventConsumption> consumptions) {
+        idempotencyService.rememberSucceeded(consumptions.stream()
+            .map(EventConsumption::getIdempotencyKey)
+            .filter(Objects::nonNull)
+            .toList());
+    }
+
+    private void recordCompletions(Map<EventConsumption, EventStatus> statuses, Instant completedAt) {
+        statuses.forEach((consumption, status) -> {
+            metricsService.recordEventProcessed(consumption.getEventType(), consumption.getConsumerWorker().getId(),
+                status, consumption.getProcessingStartedAt() != null
+                    ? completedAt.toEpochMilli() - consumption.getProcessingStartedAt().toEpochMilli()
+                    : 0L);
+            trackCompletion(consumption.getEventType(), consumption.getConsumerWorker().getId(), status);
+        });
+    }
+
+    private void countFailure(String eventType, EventStatus status) {
+        if (status == EventStatus.FAILED_RETRYABLE) {
+            meters.retried(eventType, 1);
+        } else {
+            meters.deadLettered(eventType, 1);
+        }
+    }
+
+    // Retryable failures stay in the backlog until they succeed or are dead-lettered
+    private void trackCompletion(String eventType, Long consumerWorkerId, EventStatus status) {
+        if (status != EventStatus.FAILED_RETRYABLE) {
+            lagTracker.completed(eventType, consumerWorkerId, 1);
+        }
+    }
+
+    private EventConsumption newConsumption(String eventUuid, String eventType, SystemWorker worker, Instant now,
+                                            Instant leaseExpiresAt) {
+        EventConsumption consumption = new EventConsumption();
+        consumption.setEventUuid(eventUuid);
+        consumption.setEventType(eventType);
+        consumption.setConsumerWorker(worker);
+        consumption.setStatus(EventStatus.PROCESSING);
+        consumption.setAttemptNumber(1);
+        consumption.setProcessingStartedAt(now);
+        consumption.setLeaseExpiresAt(leaseExpiresAt);
+        consumption.setLeaseOwner(leaseOwner);
+        consumption.setIdempotencyKey(idempotencyService.generateIdempotencyKey(eventUuid, worker.getId()));
+        return consumption;
+    }
+
+    private void startAttempt(EventConsumption consumption, Instant now, Instant leaseExpiresAt) {
+        consumption.setStatus(EventStatus.PROCESSING);
+        consumption.setNextAttemptAt(null);
+        consumption.setProcessingStartedAt(now);
+        consumption.setLeaseExpiresAt(leaseExpiresAt);
+        consumption.setLeaseOwner(leaseOwner);
+        consumption.setAttemptNumber(consumption.getAttemptNumber() == null ? 1 : consumption.getAttemptNumber() + 1);
+        if (consumption.getIdempotencyKey() == null) {
+            consumption.setIdempotencyKey(idempotencyService.generateIdempotencyKey(consumption.getEventUuid(),
+                consumption.getConsumerWorker().getId()));
         }
+    }
+
+    // Consumers only learn about events whose rows are committed, so a rollback never reaches them
+    private void dispatchAfterCommit(List<WorkersEvent> events) {
+        afterCommit(() -> dispatch(events));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // The grace period keeps blobs that an uncommitted publish has just stored again under the same reference
+    private void deleteBlobs(Collection<String> payloadRefs, Instant unusedSince) {
+        int deleted = 0;
+        for (String payloadRef : payloadRefs) {
+            try {
+                if (blobStore.deleteIfUnusedSince(payloadRef, unusedSince)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Unable to delete payload blob {}", payloadRef, e);
+            }
+        }
+        LOGGER.info("Deleted {} payload blobs of archived events", deleted);
+    }
+
+    private void dispatch(List<WorkersEvent> events) {
+        Set<String> eventTypes = events.stream().map(WorkersEvent::getEventType).collect(Collectors.toSet());
         try {
-            return objectMapper.writeValueAsString(eventData);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Unable to serialize event data", e);
+            eventSignal.signal(eventTypes);
+        } catch (RuntimeException ex) {
+            // the events are committed; remote pollers still find them on their periodic full claim
+            LOGGER.warn("Failed to signal new {} events", eventTypes, ex);
         }
+        events.stream()
+            .collect(Collectors.groupingBy(WorkersEvent::getEventType, Collectors.counting()))
+            .forEach((eventType, count) -> {
+                meters.published(eventType, count);
+                lagTracker.published(eventType, count);
+            });
+        localEventBuffer.publish(events);
+    }
+
+    private WorkersEvent newEvent(String eventType, Integer eventVersion, Object eventData, String correlationId) {
+        WorkersEvent event = new WorkersEvent();
+        event.setEventUuid(uuidGenerator.nextUuid().toString());
+        event.setEventType(eventType);
+        event.setEventVersion(eventVersion != null ? eventVersion : 1);
+        payloadCodecs.write(event, eventData);
+        event.setCorrelationId(correlationId);
+        event.setStatus(EventStatus.PENDING);
+        return event;
     }
 
-    private long computeProcessingDuration(EventConsumption consumption) {
-        if (consumption.getProcessingStartedAt() == null || consumption.getCompletedAt() == null) {
-            return 0L;
+    private Map<Long, SystemWorker> resolveProducers(List<EventPublishRequest> requests) {
+        Set<Long> producerIds = requests.stream()
+            .map(EventPublishRequest::getProducerWorkerId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (producerIds.isEmpty()) {
+            return Collections.emptyMap();
         }
-        return consumption.getCompletedAt().toEpochMilli() - consumption.getProcessingStartedAt().toEpochMilli();
+        Map<Long, SystemWorker> producers = systemWorkerRepository.findAllById(producerIds).stream()
+            .collect(Collectors.toMap(SystemWorker::getId, Function.identity()));
+        producerIds.stream()
+            .filter(id -> !producers.containsKey(id))
+            .findFirst()
+            .ifPresent(id -> {
+                throw new IllegalArgumentException("Producer worker not found: " + id);
+            });
+        return producers;
+    }
+
+    private Duration computeRetryDelay(SystemWorker worker, int attemptNumber) {
+        long baseMillis = worker.getRetryDelaySeconds() * 1000L;
+        int exponent = Math.min(Math.max(attemptNumber - 1, 0), 20);
+        long delayMillis = Math.min(baseMillis << exponent, maxRetryDelay.toMillis());
+        long half = delayMillis / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private record LagKey(String eventType, Long consumerWorkerId) {
+    }
+
+    private record FailureGroup(EventStatus status, SystemWorker worker, Integer attemptNumber, String errorMessage) {
     }
 
     private String getStackTrace(Exception error) {
@@ -4,51 +4,75 @@ import com.example.eventbus.domain.EventConsumption;
 import com.example.eventbus.domain.EventStatus;
 import com.example.eventbus.domain.repository.EventConsumptionRepository;
 import com.example.eventbus.service.IIdempotencyService;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.eventbus.dto.ConsumptionResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class IdempotencyServiceImpl implements IIdempotencyService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
 
+    // MessageDigest is not thread-safe; one instance per thread replaces a provider lookup for every key and hash
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(IdempotencyServiceImpl::newSha256);
+    private static final HexFormat HEX = HexFormat.of();
+
     private final EventConsumptionRepository eventConsumptionRepository;
-    private final ObjectMapper objectMapper;
+    private final ObjectWriter canonicalWriter;
+    private final SucceededKeyFilter succeededKeys;
 
     public IdempotencyServiceImpl(EventConsumptionRepository eventConsumptionRepository,
-                                  ObjectMapper objectMapper) {
+                                  ObjectMapper objectMapper,
+                                  @Value("${eventbus.idempotency.filter.enabled:true}") boolean filterEnabled,
+                                  @Value("${eventbus.idempotency.filter.capacity:1000000}") int filterCapacity) {
         this.eventConsumptionRepository = eventConsumptionRepository;
-        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.succeededKeys = filterEnabled ? new SucceededKeyFilter(filterCapacity) : null;
     }
 
     @Override
     public String generateIdempotencyKey(String eventUuid, Long consumerWorkerId) {
         String value = eventUuid + "-" + consumerWorkerId;
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Unable to create SHA-256 digest", e);
-        }
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return HEX.formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public boolean isAlreadyProcessed(String idempotencyKey) {
         Optional<EventConsumption> optional = eventConsumptionRepository.findByIdempotencyKey(idempotencyKey);
         return optional.filter(consumption -> consumption.getStatus() == EventStatus.SUCCESS).isPresent();
     }
 
+    // The filter only holds keys that succeeded on this node. A consumer checks events it has just claimed, which are
+    // almost never done yet, so misses answer the common case without a query. Such a consumption can only have
+    // succeeded on another node after this node's lease expired, a case the database lookup did not close either.
+    @Override
+    public boolean isClaimedAlreadyProcessed(String idempotencyKey) {
+        if (succeededKeys != null && !succeededKeys.mightContain(idempotencyKey)) {
+            return false;
+        }
+        return isAlreadyProcessed(idempotencyKey);
+    }
+
     @Override
     @Transactional
     public void recordProcessing(String idempotencyKey, String resultHash) {
@@ -56,26 +80,55 @@ public class IdempotencyServiceImpl implements IIdempotencyService {
             consumption.setResultHash(resultHash);
             eventConsumptionRepository.save(consumption);
         }, () -> LOGGER.warn("Consumption record not found when recording idempotent result for key {}", idempotencyKey));
+        rememberSucceeded(List.of(idempotencyKey));
     }
 
+    // Keys only enter the filter once the transaction that acknowledged them commits
+    @Override
+    public void rememberSucceeded(Collection<String> idempotencyKeys) {
+        if (succeededKeys == null || idempotencyKeys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            idempotencyKeys.forEach(succeededKeys::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                idempotencyKeys.forEach(succeededKeys::add);
+            }
+        });
+    }
+
+    // Jackson writes straight into the digest, so the result never exists as a JSON string or byte array. Map entries
+    // are sorted by key (bean properties already have a fixed order), so equal results hash alike whatever map they
+    // were built in. The digest is shared with generateIdempotencyKey, so a failed serialization must not leave bytes in it
     @Override
     public String calculateResultHash(Object result) {
         if (result == null) {
             return null;
         }
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
         try {
-            String json = objectMapper.writeValueAsString(result);
-            return generateSha256(json);
-        } catch (JsonProcessingException e) {
+            canonicalWriter.writeValue(new DigestOutputStream(OutputStream.nullOutputStream(), digest), result);
+            return HEX.formatHex(digest.digest());
+        } catch (IOException e) {
             throw new IllegalArgumentException("Unable to serialize result for hashing", e);
+        } finally {
+            digest.reset();
         }
     }
 
-    private String generateSha256(String value) {
+    @Override
+    public String resolveResultHash(ConsumptionResult result) {
+        return result.getResultHash() != null ? result.getResultHash() : calculateResultHash(result.getResultData());
+    }
+
+    private static MessageDigest newSha256() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("Unable to create SHA-256 digest", e);
         }
@@ -2,46 +2,117 @@ package com.example.eventbus.service.impl;
 
 import com.example.eventbus.domain.EventMetrics;
 import com.example.eventbus.domain.EventStatus;
-import com.example.eventbus.domain.SystemWorker;
 import com.example.eventbus.domain.repository.EventMetricsRepository;
-import com.example.eventbus.domain.repository.SystemWorkerRepository;
+import com.example.eventbus.dto.LatencyPercentiles;
+import com.example.eventbus.metrics.LatencyHistogram;
 import com.example.eventbus.service.IMetricsService;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+// Recording only adds to striped in-memory counters and histograms; flush() writes what accumulated since the previous
+// flush with one upsert per (date, event type, consumer, status), so consumers never wait on a metrics row.
 @Service
 public class MetricsServiceImpl implements IMetricsService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsServiceImpl.class);
+
     private final EventMetricsRepository eventMetricsRepository;
-    private final SystemWorkerRepository systemWorkerRepository;
+    private final TransactionTemplate keyTransaction;
+    private final Map<MetricsKey, MetricsCounter> counters = new ConcurrentHashMap<>();
 
     public MetricsServiceImpl(EventMetricsRepository eventMetricsRepository,
-                              SystemWorkerRepository systemWorkerRepository) {
+                              PlatformTransactionManager transactionManager) {
         this.eventMetricsRepository = eventMetricsRepository;
-        this.systemWorkerRepository = systemWorkerRepository;
+        this.keyTransaction = new TransactionTemplate(transactionManager);
+        this.keyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Override
-    @Transactional
     public void recordEventProcessed(String eventType, Long consumerWorkerId, EventStatus status, long processingTimeMs) {
-        LocalDate today = LocalDate.now(ZoneOffset.UTC);
-        SystemWorker worker = null;
-        if (consumerWorkerId != null) {
-            worker = systemWorkerRepository.findById(consumerWorkerId).orElse(null);
-        }
+        MetricsCounter counter = counter(eventType, consumerWorkerId, status);
+        counter.eventCount.increment();
+        counter.processingTimeMs.add(processingTimeMs);
+        counter.processingTimes.record(processingTimeMs);
+    }
 
-        EventMetrics metrics = eventMetricsRepository
-            .findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus(today, eventType,
-                worker != null ? worker.getId() : null, status)
-            .orElseGet(() -> eventMetricsRepository.save(new EventMetrics(today, eventType, worker, status)));
+    // Queue wait (created_at to processing_started_at) is measured per claim and kept on the key's PROCESSING row,
+    // whose event count is therefore the number of claims
+    @Override
+    public void recordQueueWait(String eventType, Long consumerWorkerId, long queueWaitMs) {
+        MetricsCounter counter = counter(eventType, consumerWorkerId, EventStatus.PROCESSING);
+        counter.eventCount.increment();
+        counter.queueWaits.record(queueWaitMs);
+    }
 
-        metrics.incrementEventCount();
-        metrics.addProcessingTime(processingTimeMs);
-        metrics.recalculateAverage();
-        eventMetricsRepository.save(metrics);
+    // Each key is written in its own transaction, so one failing key neither rolls back nor holds up the others.
+    // Counters are never reset, so a concurrent add is never lost: a flush writes the difference to what the previous
+    // flush wrote and advances that mark once the key's transaction committed. Histograms are drained instead, merged
+    // into the stored ones and put back if the write fails. A key whose row can never be written, e.g. because its
+    // consumer worker was deleted, is dropped rather than failing every later flush; any other failure is rethrown once
+    // the remaining keys were written, and the key is retried by the next flush.
+    @Override
+    public synchronized int flush() {
+        Instant now = Instant.now();
+        LocalDate expired = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        int flushed = 0;
+        RuntimeException failure = null;
+        for (Map.Entry<MetricsKey, MetricsCounter> entry : counters.entrySet()) {
+            MetricsKey key = entry.getKey();
+            MetricsCounter counter = entry.getValue();
+            // Histograms and time are read before the count: anything they include was counted already, so the count
+            // delta is never 0 while something else is pending
+            LatencyHistogram processingTimes = counter.processingTimes.drain();
+            LatencyHistogram queueWaits = counter.queueWaits.drain();
+            long processingTimeMs = counter.processingTimeMs.sum();
+            long eventCount = counter.eventCount.sum();
+            long countDelta = eventCount - counter.flushedEventCount;
+            long processingTimeDelta = processingTimeMs - counter.flushedProcessingTimeMs;
+            if (countDelta == 0) {
+                if (key.metricDate().isBefore(expired)) {
+                    counters.remove(key, counter);
+                }
+                continue;
+            }
+            try {
+                keyTransaction.executeWithoutResult(status -> {
+                    eventMetricsRepository.upsert(key.metricDate(), key.eventType(), key.consumerWorkerId(),
+                        key.status().name(), countDelta, processingTimeDelta, now);
+                    mergeHistograms(key, processingTimes, queueWaits);
+                });
+                flushed++;
+            } catch (DataIntegrityViolationException ex) {
+                LOGGER.warn("Dropping {} unstorable event metrics for {}", countDelta, key, ex);
+            } catch (RuntimeException ex) {
+                counter.processingTimes.add(processingTimes);
+                counter.queueWaits.add(queueWaits);
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+                continue;
+            }
+            counter.flushedEventCount = eventCount;
+            counter.flushedProcessingTimeMs = processingTimeMs;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return flushed;
     }
 
     @Override
@@ -55,4 +126,67 @@ public class MetricsServiceImpl implements IMetricsService {
     public long getDailyEventCount(String eventType, LocalDate date) {
         return eventMetricsRepository.countByEventTypeAndMetricDateAndStatus(eventType, date, EventStatus.SUCCESS);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LatencyPercentiles getProcessingPercentiles(String eventType, EventStatus status, LocalDate fromDate,
+                                                       LocalDate toDate) {
+        return percentiles(eventType, status, fromDate, toDate, EventMetrics::getProcessingHistogram);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LatencyPercentiles getQueueWaitPercentiles(String eventType, LocalDate fromDate, LocalDate toDate) {
+        return percentiles(eventType, EventStatus.PROCESSING, fromDate, toDate, EventMetrics::getQueueWaitHistogram);
+    }
+
+    // Merges the stored histograms of every consumer and day in the range
+    private LatencyPercentiles percentiles(String eventType, EventStatus status, LocalDate fromDate, LocalDate toDate,
+                                           Function<EventMetrics, byte[]> histogram) {
+        LatencyHistogram merged = new LatencyHistogram();
+        eventMetricsRepository.findByEventTypeAndMetricDateBetween(eventType, fromDate, toDate).stream()
+            .filter(metrics -> metrics.getStatus() == status)
+            .forEach(metrics -> merged.add(LatencyHistogram.fromBytes(histogram.apply(metrics))));
+        return new LatencyPercentiles(merged.getCount(), merged.getValueAtPercentile(50),
+            merged.getValueAtPercentile(95), merged.getValueAtPercentile(99), merged.getMax());
+    }
+
+    // The upsert has locked the row and cleared the persistence context, so this reads the current histograms
+    private void mergeHistograms(MetricsKey key, LatencyHistogram processingTimes, LatencyHistogram queueWaits) {
+        if (processingTimes.isEmpty() && queueWaits.isEmpty()) {
+            return;
+        }
+        eventMetricsRepository.findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus(key.metricDate(),
+            key.eventType(), key.consumerWorkerId(), key.status()).ifPresent(metrics -> {
+                if (!processingTimes.isEmpty()) {
+                    LatencyHistogram stored = LatencyHistogram.fromBytes(metrics.getProcessingHistogram());
+                    stored.add(processingTimes);
+                    metrics.setProcessingHistogram(stored.toBytes());
+                }
+                if (!queueWaits.isEmpty()) {
+                    LatencyHistogram stored = LatencyHistogram.fromBytes(metrics.getQueueWaitHistogram());
+                    stored.add(queueWaits);
+                    metrics.setQueueWaitHistogram(stored.toBytes());
+                }
+                eventMetricsRepository.save(metrics);
+            });
+    }
+
+    private MetricsCounter counter(String eventType, Long consumerWorkerId, EventStatus status) {
+        MetricsKey key = new MetricsKey(LocalDate.now(ZoneOffset.UTC), eventType, consumerWorkerId, status);
+        return counters.computeIfAbsent(key, k -> new MetricsCounter());
+    }
+
+    private record MetricsKey(LocalDate metricDate, String eventType, Long consumerWorkerId, EventStatus status) {
+    }
+
+    private static final class MetricsCounter {
+
+        private final LongAdder eventCount = new LongAdder();
+        private final LongAdder processingTimeMs = new LongAdder();
+        private final LatencyHistogram processingTimes = new LatencyHistogram();
+        private final LatencyHistogram queueWaits = new LatencyHistogram();
+        private long flushedEventCount;
+        private long flushedProcessingTimeMs;
+    }
 }
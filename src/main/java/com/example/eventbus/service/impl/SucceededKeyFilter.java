@@ -0,0 +1,88 @@
+package com.example.eventbus.service.impl;
+
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over the idempotency keys this node has seen succeed. A miss proves the key did not succeed here; a hit
+// may be a false positive (about 1%) or a key that was replayed since, so callers confirm hits against the database.
+// Two generations bound the memory: once the current one holds its capacity it replaces the previous one, so keys are
+// remembered for between one and two generations.
+final class SucceededKeyFilter {
+
+    private static final int KEY_LENGTH = 64;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final int capacity;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    SucceededKeyFilter(int capacity) {
+        this.capacity = capacity;
+        this.current = new Generation(capacity);
+        this.previous = new Generation(1);
+    }
+
+    void add(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.length() != KEY_LENGTH) {
+            return;
+        }
+        Generation generation = current;
+        if (generation.add(idempotencyKey) >= capacity) {
+            rotate(generation);
+        }
+    }
+
+    // Keys not produced by generateIdempotencyKey are never added, so they always have to be looked up
+    boolean mightContain(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.length() != KEY_LENGTH) {
+            return true;
+        }
+        return current.mightContain(idempotencyKey) || previous.mightContain(idempotencyKey);
+    }
+
+    private synchronized void rotate(Generation full) {
+        if (current == full) {
+            previous = full;
+            current = new Generation(capacity);
+        }
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicInteger size = new AtomicInteger();
+
+        Generation(int capacity) {
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (ln2 * ln2));
+            this.bits = new AtomicLongArray((int) ((Math.max(optimalBits, 64L) + 63) >>> 6));
+            this.bitCount = (long) bits.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) optimalBits / capacity * ln2));
+        }
+
+        int add(String key) {
+            long first = HexFormat.fromHexDigitsToLong(key, 0, 16);
+            long second = HexFormat.fromHexDigitsToLong(key, 16, 32);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Long.remainderUnsigned(first + i * second, bitCount);
+                bits.accumulateAndGet((int) (index >>> 6), 1L << index, (word, mask) -> word | mask);
+            }
+            return size.incrementAndGet();
+        }
+
+        boolean mightContain(String key) {
+            long first = HexFormat.fromHexDigitsToLong(key, 0, 16);
+            long second = HexFormat.fromHexDigitsToLong(key, 16, 32);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Long.remainderUnsigned(first + i * second, bitCount);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.eventbus.service.impl;
 
+import com.example.eventbus.domain.EventSubscription;
 import com.example.eventbus.domain.SystemWorker;
+import com.example.eventbus.domain.repository.EventSubscriptionRepository;
 import com.example.eventbus.domain.repository.SystemWorkerRepository;
 import com.example.eventbus.service.IEventConsumer;
 import com.example.eventbus.service.IEventProducer;
@@ -23,9 +25,12 @@ public class WorkerRegistryImpl implements IWorkerRegistry {
     private final Map<String, IEventProducer> producers = new ConcurrentHashMap<>();
     private final Map<String, List<IEventConsumer>> consumers = new ConcurrentHashMap<>();
     private final SystemWorkerRepository systemWorkerRepository;
+    private final EventSubscriptionRepository eventSubscriptionRepository;
 
-    public WorkerRegistryImpl(SystemWorkerRepository systemWorkerRepository) {
+    public WorkerRegistryImpl(SystemWorkerRepository systemWorkerRepository,
+                              EventSubscriptionRepository eventSubscriptionRepository) {
         this.systemWorkerRepository = systemWorkerRepository;
+        this.eventSubscriptionRepository = eventSubscriptionRepository;
     }
 
     @Override
@@ -40,9 +45,10 @@ public class WorkerRegistryImpl implements IWorkerRegistry {
     @Transactional
     public void registerConsumer(IEventConsumer consumer) {
         SystemWorker worker = persistWorker(consumer.getConsumerWorker());
-        consumer.getSupportedEventTypes().forEach(eventType ->
-            consumers.computeIfAbsent(eventType, key -> new ArrayList<>()).add(consumer)
-        );
+        consumer.getSupportedEventTypes().forEach(eventType -> {
+            persistSubscription(worker, eventType);
+            consumers.computeIfAbsent(eventType, key -> new ArrayList<>()).add(consumer);
+        });
         LOGGER.info("Registered consumer {} for events {}", worker.getWorkerName(), consumer.getSupportedEventTypes());
     }
 
@@ -73,4 +79,10 @@ public class WorkerRegistryImpl implements IWorkerRegistry {
         return systemWorkerRepository.findByWorkerName(worker.getWorkerName())
             .orElseGet(() -> systemWorkerRepository.save(worker));
     }
+
+    private void persistSubscription(SystemWorker worker, String eventType) {
+        if (!eventSubscriptionRepository.existsByConsumerWorker_IdAndEventType(worker.getId(), eventType)) {
+            eventSubscriptionRepository.save(new EventSubscription(worker, eventType));
+        }
+    }
 }
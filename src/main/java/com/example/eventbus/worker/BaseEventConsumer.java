@@ -6,7 +6,9 @@ import com.example.eventbus.dto.ConsumptionResult;
 import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IEventConsumer;
 import com.example.eventbus.service.IIdempotencyService;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,7 +38,7 @@ public abstract class BaseEventConsumer extends BaseEventWorker implements IEven
     @Override
     public ConsumptionResult consume(WorkersEvent event) {
         String idempotencyKey = idempotencyService.generateIdempotencyKey(event.getEventUuid(), getWorkerId());
-        if (idempotencyService.isAlreadyProcessed(idempotencyKey)) {
+        if (idempotencyService.isClaimedAlreadyProcessed(idempotencyKey)) {
             return ConsumptionResult.success("Already processed");
         }
 
@@ -50,6 +52,7 @@ public abstract class BaseEventConsumer extends BaseEventWorker implements IEven
                 String resultHash = idempotencyService.calculateResultHash(result.getResultData());
                 idempotencyService.recordProcessing(idempotencyKey, resultHash);
                 afterSuccessfulProcessing(event, duration);
+                result = result.withResultHash(resultHash);
             } else if (result.isRetryable()) {
                 afterRetryableFailure(event, result.getErrorMessage());
             } else {
@@ -64,6 +67,65 @@ public abstract class BaseEventConsumer extends BaseEventWorker implements IEven
         }
     }
 
+    // Subclasses opt into batch delivery by implementing IBatchEventConsumer and overriding processBatch; events
+    // already processed are answered from the idempotency check and never reach processBatch
+    public List<ConsumptionResult> consumeBatch(List<WorkersEvent> events) {
+        ConsumptionResult[] results = new ConsumptionResult[events.size()];
+        List<WorkersEvent> pending = new ArrayList<>(events.size());
+        List<Integer> positions = new ArrayList<>(events.size());
+        List<String> idempotencyKeys = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            WorkersEvent event = events.get(i);
+            String idempotencyKey = idempotencyService.generateIdempotencyKey(event.getEventUuid(), getWorkerId());
+            if (idempotencyService.isClaimedAlreadyProcessed(idempotencyKey)) {
+                results[i] = ConsumptionResult.success("Already processed");
+            } else {
+                pending.add(event);
+                positions.add(i);
+                idempotencyKeys.add(idempotencyKey);
+            }
+        }
+        if (pending.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        List<ConsumptionResult> processed;
+        long duration;
+        try {
+            long start = System.currentTimeMillis();
+            processed = processBatch(pending);
+            duration = System.currentTimeMillis() - start;
+        } catch (Exception ex) {
+            boolean retryable = isRetryable(ex);
+            for (int i = 0; i < pending.size(); i++) {
+                handleProcessingError(pending.get(i), ex);
+                results[positions.get(i)] = ConsumptionResult.failure(ex.getMessage(), retryable);
+            }
+            return Arrays.asList(results);
+        }
+        if (processed.size() != pending.size()) {
+            throw new IllegalStateException("processBatch returned " + processed.size() + " results for "
+                + pending.size() + " events");
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            WorkersEvent event = pending.get(i);
+            ConsumptionResult result = processed.get(i);
+            if (result.isSuccess()) {
+                String resultHash = idempotencyService.calculateResultHash(result.getResultData());
+                idempotencyService.recordProcessing(idempotencyKeys.get(i), resultHash);
+                afterSuccessfulProcessing(event, duration);
+                result = result.withResultHash(resultHash);
+            } else if (result.isRetryable()) {
+                afterRetryableFailure(event, result.getErrorMessage());
+            } else {
+                afterPermanentFailure(event, result.getErrorMessage());
+            }
+            results[positions.get(i)] = result;
+        }
+        return Arrays.asList(results);
+    }
+
     @Override
     public SystemWorker getConsumerWorker() {
         return getSystemWorker();
@@ -74,6 +136,14 @@ public abstract class BaseEventConsumer extends BaseEventWorker implements IEven
         return List.copyOf(supportedEventTypes);
     }
 
+    protected boolean extendLease(WorkersEvent event) {
+        return extendLease(event, Duration.ofSeconds(getSystemWorker().getTimeoutSeconds()));
+    }
+
+    protected boolean extendLease(WorkersEvent event, Duration leaseDuration) {
+        return eventBusService.extendLease(event.getEventUuid(), getWorkerId(), leaseDuration);
+    }
+
     protected void afterSuccessfulProcessing(WorkersEvent event, long processingTimeMs) {
     }
 
@@ -85,6 +155,20 @@ public abstract class BaseEventConsumer extends BaseEventWorker implements IEven
 
     protected abstract ConsumptionResult processEvent(WorkersEvent event);
 
+    // Processes the events one by one by default; batch consumers replace this with a single bulk call
+    protected List<ConsumptionResult> processBatch(List<WorkersEvent> events) {
+        List<ConsumptionResult> results = new ArrayList<>(events.size());
+        for (WorkersEvent event : events) {
+            try {
+                results.add(processEvent(event));
+            } catch (Exception ex) {
+                handleProcessingError(event, ex);
+                results.add(ConsumptionResult.failure(ex.getMessage(), isRetryable(ex)));
+            }
+        }
+        return results;
+    }
+
     protected void handleProcessingError(WorkersEvent event, Exception error) {
     }
 
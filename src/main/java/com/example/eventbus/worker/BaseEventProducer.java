@@ -1,9 +1,11 @@
 package com.example.eventbus.worker;
 
 import com.example.eventbus.domain.SystemWorker;
+import com.example.eventbus.dto.EventPublishRequest;
 import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IEventProducer;
 import com.example.eventbus.service.IIdempotencyService;
+import java.util.List;
 
 public abstract class BaseEventProducer extends BaseEventWorker implements IEventProducer {
 
@@ -25,6 +27,36 @@ public abstract class BaseEventProducer extends BaseEventWorker implements IEven
         return eventBusService.publishEvent(getWorkerId(), eventType, enrichedData, correlationId);
     }
 
+    // Enriched data and the producer id go into copies, so callers can reuse or inspect their requests afterwards
+    @Override
+    public List<String> publishEvents(List<EventPublishRequest> requests) {
+        return eventBusService.publishEvents(requests.stream()
+            .map(request -> {
+                validateEventData(request.getEventData());
+                return stamp(request, enrichEventData(request.getEventData()));
+            })
+            .toList());
+    }
+
+    protected EventPublishRequest newPublishRequest(String eventType, Object eventData) {
+        EventPublishRequest request = new EventPublishRequest();
+        request.setEventType(eventType);
+        request.setEventData(eventData);
+        return request;
+    }
+
+    private EventPublishRequest stamp(EventPublishRequest request, Object eventData) {
+        EventPublishRequest stamped = new EventPublishRequest();
+        stamped.setProducerWorkerId(getWorkerId());
+        stamped.setEventType(request.getEventType());
+        stamped.setEventVersion(request.getEventVersion());
+        stamped.setEventData(eventData);
+        stamped.setCorrelationId(request.getCorrelationId());
+        stamped.setPartNumber(request.getPartNumber());
+        stamped.setPartsCount(request.getPartsCount());
+        return stamped;
+    }
+
     @Override
     public SystemWorker getProducerWorker() {
         return getSystemWorker();
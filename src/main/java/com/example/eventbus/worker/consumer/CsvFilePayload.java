@@ -0,0 +1,27 @@
+package com.example.eventbus.worker.consumer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// Payload of FtpDownloadProducer.EVENT_TYPE as read by CsvProcessorConsumer; other fields of the event are ignored
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CsvFilePayload {
+
+    private String fileName;
+    private String csvContent;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getCsvContent() {
+        return csvContent;
+    }
+
+    public void setCsvContent(String csvContent) {
+        this.csvContent = csvContent;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.eventbus.worker.consumer;
 
+import com.example.eventbus.codec.EventPayloadCodecs;
 import com.example.eventbus.domain.SystemWorker;
 import com.example.eventbus.domain.WorkersEvent;
 import com.example.eventbus.dto.ConsumptionResult;
@@ -7,12 +8,10 @@ import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IIdempotencyService;
 import com.example.eventbus.worker.BaseEventConsumer;
 import com.example.eventbus.worker.producer.FtpDownloadProducer;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,65 +20,75 @@ public class CsvProcessorConsumer extends BaseEventConsumer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CsvProcessorConsumer.class);
 
-    private final ObjectMapper objectMapper;
+    private final EventPayloadCodecs payloadCodecs;
 
     public CsvProcessorConsumer(SystemWorker systemWorker,
                                 IEventBusService eventBusService,
                                 IIdempotencyService idempotencyService,
-                                ObjectMapper objectMapper) {
+                                EventPayloadCodecs payloadCodecs) {
         super(systemWorker, eventBusService, idempotencyService);
-        this.objectMapper = objectMapper;
+        this.payloadCodecs = payloadCodecs;
         registerEventType(FtpDownloadProducer.EVENT_TYPE, 1);
     }
 
     @Override
     protected ConsumptionResult processEvent(WorkersEvent event) {
         try {
-            JsonNode node = objectMapper.readTree(event.getEventData());
-            String csvContent = node.path("csvContent").asText("");
-            List<Map<String, String>> records = parseCsv(csvContent);
-            validateData(records);
-            LOGGER.info("Processed {} records from event {}", records.size(), event.getEventUuid());
+            CsvFilePayload payload = payloadCodecs.read(event, CsvFilePayload.class);
+            if (payload == null) {
+                return ConsumptionResult.failure("Invalid event payload", false);
+            }
+            String csvContent = payload.getCsvContent() != null ? payload.getCsvContent() : "";
+            long records;
+            try (CsvReader csv = new CsvReader(new StringReader(csvContent))) {
+                records = processCsv(csv);
+            }
+            LOGGER.info("Processed {} records from event {}", records, event.getEventUuid());
             Map<String, Object> result = new HashMap<>();
-            result.put("recordsProcessed", records.size());
-            result.put("fileName", node.path("fileName").asText("unknown"));
+            result.put("recordsProcessed", records);
+            result.put("fileName", payload.getFileName() != null ? payload.getFileName() : "unknown");
             return ConsumptionResult.success(result);
-        } catch (JsonProcessingException e) {
-            return ConsumptionResult.failure("Invalid event payload", false);
         } catch (IllegalArgumentException e) {
             return ConsumptionResult.failure(e.getMessage(), false);
+        } catch (IOException | UncheckedIOException e) {
+            return ConsumptionResult.failure(e.getMessage(), true);
         }
     }
 
-    protected List<Map<String, String>> parseCsv(String data) {
-        List<Map<String, String>> records = new ArrayList<>();
-        if (data == null || data.isEmpty()) {
-            return records;
+    // Validates and processes one record at a time, so memory does not grow with the number of rows
+    protected long processCsv(CsvReader csv) throws IOException {
+        if (!csv.next()) {
+            throw new IllegalArgumentException("No records found in CSV");
         }
-        String[] lines = data.split("\\n");
-        if (lines.length < 2) {
-            return records;
+        int idColumn = columnIndex(csv, "id");
+        long records = 0;
+        while (csv.next()) {
+            validateData(csv, idColumn);
+            processRecord(csv);
+            records++;
         }
-        String[] headers = lines[0].split(",");
-        for (int i = 1; i < lines.length; i++) {
-            String[] values = lines[i].split(",");
-            Map<String, String> record = new HashMap<>();
-            for (int j = 0; j < headers.length && j < values.length; j++) {
-                record.put(headers[j].trim(), values[j].trim());
-            }
-            records.add(record);
+        if (records == 0) {
+            throw new IllegalArgumentException("No records found in CSV");
         }
         return records;
     }
 
-    protected void validateData(List<Map<String, String>> records) {
-        if (records.isEmpty()) {
-            throw new IllegalArgumentException("No records found in CSV");
+    protected void validateData(CsvReader record, int idColumn) {
+        if (idColumn < 0 || idColumn >= record.getColumnCount()) {
+            throw new IllegalArgumentException("Record missing id column");
         }
-        for (Map<String, String> record : records) {
-            if (!record.containsKey("id")) {
-                throw new IllegalArgumentException("Record missing id column");
+    }
+
+    // Hook for downstream processing; the reader's current row is overwritten by the next record
+    protected void processRecord(CsvReader record) {
+    }
+
+    private static int columnIndex(CsvReader header, String name) {
+        for (int column = 0; column < header.getColumnCount(); column++) {
+            if (header.get(column).trim().equals(name)) {
+                return column;
             }
         }
+        return -1;
     }
 }
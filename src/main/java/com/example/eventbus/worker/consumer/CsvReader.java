@@ -0,0 +1,184 @@
+package com.example.eventbus.worker.consumer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Streaming RFC 4180 reader: quoted fields may contain commas, line breaks and doubled quotes, and records end with CRLF,
+// LF or CR. Each next() overwrites one reused row buffer, so memory stays bounded by the longest record; get(column)
+// only allocates for the columns that are read. Blank lines are skipped.
+public class CsvReader implements Closeable {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private char[] row = new char[256];
+    private int rowLength;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private long recordNumber;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Decodes UTF-8 on the fly, e.g. over a payload mapped by EventPayloadCodecs.mapPayload
+    public CsvReader(ByteBuffer bytes) {
+        this(new ByteBufferReader(bytes.duplicate()));
+    }
+
+    public boolean next() throws IOException {
+        do {
+            if (!readRecord()) {
+                return false;
+            }
+        } while (fieldCount == 1 && rowLength == 0);
+        recordNumber++;
+        return true;
+    }
+
+    public int getColumnCount() {
+        return fieldCount;
+    }
+
+    public String get(int column) {
+        if (column < 0 || column >= fieldCount) {
+            throw new IndexOutOfBoundsException("Column " + column + " of " + fieldCount + " in record " + recordNumber);
+        }
+        int start = column == 0 ? 0 : fieldEnds[column - 1];
+        return new String(row, start, fieldEnds[column] - start);
+    }
+
+    // 1-based, counting the header
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        rowLength = 0;
+        fieldCount = 0;
+        int c = read();
+        if (c == EOF) {
+            return false;
+        }
+        while (true) {
+            if (c == '"') {
+                c = readQuoted();
+                if (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    throw malformed("unexpected character after closing quote");
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                    if (c == '"') {
+                        throw malformed("quote inside unquoted field");
+                    }
+                    append((char) c);
+                    c = read();
+                }
+            }
+            endField();
+            if (c != ',') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                return true;
+            }
+            c = read();
+        }
+    }
+
+    // Returns the character following the closing quote
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                throw malformed("unterminated quoted field");
+            }
+            if (c == '"') {
+                c = read();
+                if (c != '"') {
+                    return c;
+                }
+            }
+            append((char) c);
+        }
+    }
+
+    private void append(char c) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[rowLength++] = c;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        }
+        fieldEnds[fieldCount++] = rowLength;
+    }
+
+    private int read() throws IOException {
+        return position < limit || fill() ? buffer[position++] : EOF;
+    }
+
+    private int peek() throws IOException {
+        return position < limit || fill() ? buffer[position] : EOF;
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+        return limit > 0;
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed CSV in record " + (recordNumber + 1) + ": " + reason);
+    }
+
+    private static final class ByteBufferReader extends Reader {
+
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private boolean flushed;
+
+        private ByteBufferReader(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) {
+            if (flushed) {
+                return EOF;
+            }
+            CharBuffer out = CharBuffer.wrap(chars, offset, length);
+            decoder.decode(bytes, out, true);
+            if (!bytes.hasRemaining()) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+            int read = out.position() - offset;
+            return read == 0 && flushed ? EOF : read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
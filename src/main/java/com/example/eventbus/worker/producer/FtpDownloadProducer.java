@@ -1,6 +1,7 @@
 package com.example.eventbus.worker.producer;
 
 import com.example.eventbus.domain.SystemWorker;
+import com.example.eventbus.dto.EventPublishRequest;
 import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IIdempotencyService;
 import com.example.eventbus.worker.BaseEventProducer;
@@ -25,10 +26,14 @@ public class FtpDownloadProducer extends BaseEventProducer {
 
     public void triggerDirectoryScan() {
         List<Map<String, Object>> files = scanFtpDirectory();
-        files.forEach(fileData -> {
-            LOGGER.info("Publishing download event for {}", fileData.get("fileName"));
-            publishEvent(EVENT_TYPE, fileData);
-        });
+        if (files.isEmpty()) {
+            return;
+        }
+        List<EventPublishRequest> requests = files.stream()
+            .map(fileData -> newPublishRequest(EVENT_TYPE, fileData))
+            .toList();
+        publishEvents(requests);
+        LOGGER.info("Published {} download events", requests.size());
     }
 
     protected List<Map<String, Object>> scanFtpDirectory() {
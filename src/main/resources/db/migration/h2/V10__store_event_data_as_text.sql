@@ -0,0 +1,4 @@
+-- H2 stores a character value bound to a JSON column as a JSON string literal, so a json-codec payload written by
+-- Hibernate read back as one quoted string instead of the document. The column holds the JSON text unchanged instead;
+-- MySQL parses the bound text into its json column and keeps that type
+alter table workers_event alter column event_data set data type character large object;
@@ -0,0 +1,5 @@
+-- V1 creates the event_uuid columns as binary(16). PersistenceConfiguration sets event_uuid_type from
+-- eventbus.uuid.storage, so with char storage the columns become the char(36) Hibernate writes; with binary storage the
+-- type is unchanged. Existing uuids are not converted, so the storage has to be chosen before events are stored
+alter table workers_event alter column event_uuid set data type ${event_uuid_type};
+alter table event_consumption alter column event_uuid set data type ${event_uuid_type};
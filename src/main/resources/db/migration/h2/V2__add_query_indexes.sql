@@ -0,0 +1,12 @@
+-- Indexes backing the repository queries that are not already served by a unique key or the cursor index
+
+-- findByEventTypeAndStatusOrderByCreatedAtAsc
+create index idx_workers_event_type_status_created on workers_event (event_type, status, created_at);
+-- findByStatusAndCreatedAtBefore, findArchivableIds
+create index idx_workers_event_status_created on workers_event (status, created_at);
+-- countByConsumerWorker_IdAndStatus
+create index idx_event_consumption_worker_status on event_consumption (consumer_worker_id, status);
+-- findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus
+create index idx_event_metrics_key on event_metrics (metric_date, event_type, consumer_worker_id, status);
+-- findByEventTypeAndMetricDateBetween, countByEventTypeAndMetricDateAndStatus
+create index idx_event_metrics_type_date on event_metrics (event_type, metric_date, status);
@@ -0,0 +1,7 @@
+-- Last published sequence per event type, read by poll loops with a primary key lookup before they claim
+create table event_signal (
+    event_type varchar(255) not null,
+    published_sequence bigint not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (event_type)
+);
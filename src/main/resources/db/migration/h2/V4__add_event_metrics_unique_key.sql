@@ -0,0 +1,30 @@
+-- Metrics are now written by one upsert per (date, event type, consumer, status), so the key becomes unique. Rows
+-- duplicated by the old find-then-insert race are folded into the oldest row of their key first.
+update event_metrics m
+set event_count = (
+        select sum(d.event_count) from event_metrics d
+        where d.metric_date = m.metric_date and d.event_type = m.event_type and d.status = m.status
+          and d.consumer_worker_id is not distinct from m.consumer_worker_id),
+    total_processing_time_ms = (
+        select sum(d.total_processing_time_ms) from event_metrics d
+        where d.metric_date = m.metric_date and d.event_type = m.event_type and d.status = m.status
+          and d.consumer_worker_id is not distinct from m.consumer_worker_id)
+where m.id = (
+        select min(d.id) from event_metrics d
+        where d.metric_date = m.metric_date and d.event_type = m.event_type and d.status = m.status
+          and d.consumer_worker_id is not distinct from m.consumer_worker_id)
+  and exists (
+        select 1 from event_metrics d
+        where d.metric_date = m.metric_date and d.event_type = m.event_type and d.status = m.status
+          and d.consumer_worker_id is not distinct from m.consumer_worker_id and d.id <> m.id);
+
+update event_metrics set avg_processing_time_ms = total_processing_time_ms / event_count where event_count > 0;
+
+delete from event_metrics m
+where exists (
+        select 1 from event_metrics d
+        where d.metric_date = m.metric_date and d.event_type = m.event_type and d.status = m.status
+          and d.consumer_worker_id is not distinct from m.consumer_worker_id and d.id < m.id);
+
+drop index idx_event_metrics_key;
+create unique index uk_event_metrics_key on event_metrics (metric_date, event_type, consumer_worker_id, status);
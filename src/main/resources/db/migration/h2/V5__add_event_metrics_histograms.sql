@@ -0,0 +1,3 @@
+-- Serialized log-linear latency histograms, merged on every metrics flush
+alter table event_metrics add column processing_histogram varbinary(65535);
+alter table event_metrics add column queue_wait_histogram varbinary(65535);
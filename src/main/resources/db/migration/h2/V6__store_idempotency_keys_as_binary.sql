@@ -0,0 +1,7 @@
+-- Idempotency keys are SHA-256 digests; keep the 32 raw bytes instead of 64 hex characters
+alter table event_consumption add column idempotency_key_bin binary(32);
+update event_consumption set idempotency_key_bin = hextoraw(idempotency_key) where idempotency_key is not null;
+drop index uk_event_consumption_idempotency_key;
+alter table event_consumption drop column idempotency_key;
+alter table event_consumption alter column idempotency_key_bin rename to idempotency_key;
+create unique index uk_event_consumption_idempotency_key on event_consumption (idempotency_key);
@@ -0,0 +1,4 @@
+-- Payloads written by a binary codec go to event_payload; event_data keeps the JSON written by the json codec
+alter table workers_event add column payload_codec varchar(32) default 'json' not null;
+alter table workers_event add column event_payload blob;
+alter table workers_event alter column event_data set null;
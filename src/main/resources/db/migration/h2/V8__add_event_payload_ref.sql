@@ -0,0 +1,3 @@
+-- Payloads above eventbus.blob.threshold-bytes live in the blob store under the SHA-256 reference kept here
+alter table workers_event add column payload_ref varchar(64);
+create index idx_workers_event_payload_ref on workers_event (payload_ref, status);
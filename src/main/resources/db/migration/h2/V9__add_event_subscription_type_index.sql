@@ -0,0 +1,2 @@
+-- findArchivableIds checks every subscription of an event's type before archiving it
+create index idx_event_subscription_type on event_subscription (event_type);
@@ -0,0 +1,15 @@
+-- V1 creates the event_uuid columns as binary(16). PersistenceConfiguration sets event_uuid_type from
+-- eventbus.uuid.storage, so with char storage the columns become the char(36) Hibernate writes. With binary storage the
+-- statements are skipped, since MySQL would otherwise rebuild both tables for an unchanged type. Existing uuids are not
+-- converted, so the storage has to be chosen before events are stored
+set @alter_workers_event = if('${event_uuid_type}' = 'binary(16)', 'do 0',
+    'alter table workers_event modify event_uuid ${event_uuid_type} not null');
+prepare alter_workers_event from @alter_workers_event;
+execute alter_workers_event;
+deallocate prepare alter_workers_event;
+
+set @alter_event_consumption = if('${event_uuid_type}' = 'binary(16)', 'do 0',
+    'alter table event_consumption modify event_uuid ${event_uuid_type} not null');
+prepare alter_event_consumption from @alter_event_consumption;
+execute alter_event_consumption;
+deallocate prepare alter_event_consumption;
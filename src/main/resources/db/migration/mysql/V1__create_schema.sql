@@ -0,0 +1,113 @@
+create table system_workers (
+    id bigint not null auto_increment,
+    worker_name varchar(255) not null,
+    description varchar(255),
+    class_name varchar(500) not null,
+    version int not null,
+    enabled bit not null,
+    max_retries int not null,
+    retry_delay_seconds int not null,
+    timeout_seconds int not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    last_execution_at datetime(6),
+    assistant_id varchar(255),
+    metadata json,
+    primary key (id)
+) engine=InnoDB;
+
+create unique index uk_system_workers_worker_name on system_workers (worker_name);
+
+create table workers_event (
+    id bigint not null,
+    event_uuid binary(16) not null,
+    event_type varchar(255) not null,
+    event_version int not null,
+    producer_worker_id bigint,
+    event_data json not null,
+    event_schema json,
+    status varchar(32) not null,
+    retry_count int not null,
+    processing_started_at datetime(6),
+    processed_at datetime(6),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    failed_at datetime(6),
+    archived_at datetime(6),
+    last_error_message varchar(255),
+    last_error_stack_trace text,
+    part_number int,
+    parts_count int,
+    correlation_id varchar(255),
+    parent_event_uuid varchar(255),
+    primary key (id),
+    constraint fk_workers_event_producer foreign key (producer_worker_id) references system_workers (id)
+) engine=InnoDB;
+
+create unique index uk_workers_event_uuid on workers_event (event_uuid);
+create index idx_workers_event_type_id on workers_event (event_type, id);
+
+create table event_consumption (
+    id bigint not null,
+    event_uuid binary(16) not null,
+    event_type varchar(255) not null,
+    consumer_worker_id bigint not null,
+    status varchar(32) not null,
+    attempt_number int not null,
+    created_at datetime(6) not null,
+    processing_started_at datetime(6),
+    lease_expires_at datetime(6),
+    lease_owner varchar(255),
+    next_attempt_at datetime(6),
+    completed_at datetime(6),
+    failed_at datetime(6),
+    error_message varchar(255),
+    error_stack_trace text,
+    idempotency_key varchar(255),
+    result_hash varchar(255),
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint fk_event_consumption_consumer foreign key (consumer_worker_id) references system_workers (id)
+) engine=InnoDB;
+
+create unique index uk_event_consumption_event_consumer on event_consumption (event_uuid, consumer_worker_id);
+create unique index uk_event_consumption_idempotency_key on event_consumption (idempotency_key);
+create index idx_event_consumption_delivery on event_consumption (consumer_worker_id, event_type, status, next_attempt_at);
+create index idx_event_consumption_lease on event_consumption (status, lease_expires_at);
+
+create table event_metrics (
+    id bigint not null auto_increment,
+    metric_date date not null,
+    event_type varchar(255) not null,
+    consumer_worker_id bigint,
+    status varchar(32) not null,
+    event_count bigint not null,
+    total_processing_time_ms bigint not null,
+    avg_processing_time_ms bigint,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint fk_event_metrics_consumer foreign key (consumer_worker_id) references system_workers (id)
+) engine=InnoDB;
+
+create table event_subscription (
+    id bigint not null auto_increment,
+    consumer_worker_id bigint not null,
+    event_type varchar(255) not null,
+    last_dispatched_event_id bigint not null,
+    verified_event_id bigint not null,
+    verification_target_id bigint,
+    verification_target_at datetime(6),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint fk_event_subscription_consumer foreign key (consumer_worker_id) references system_workers (id)
+) engine=InnoDB;
+
+create unique index uk_event_subscription_consumer_type on event_subscription (consumer_worker_id, event_type);
+
+-- Only used with eventbus.id.strategy=sequence; MySQL has no sequences, so Hibernate emulates them with tables
+create table workers_event_seq (next_val bigint) engine=InnoDB;
+insert into workers_event_seq values (1);
+create table event_consumption_seq (next_val bigint) engine=InnoDB;
+insert into event_consumption_seq values (1);
@@ -0,0 +1,24 @@
+-- Metrics are now written by one upsert per (date, event type, consumer, status), so the key becomes unique. Rows
+-- duplicated by the old find-then-insert race are folded into the oldest row of their key first.
+update event_metrics m
+join (
+    select min(id) as keep_id, sum(event_count) as event_count, sum(total_processing_time_ms) as total_processing_time_ms
+    from event_metrics
+    group by metric_date, event_type, consumer_worker_id, status
+    having count(*) > 1
+) d on m.id = d.keep_id
+set m.event_count = d.event_count,
+    m.total_processing_time_ms = d.total_processing_time_ms,
+    m.avg_processing_time_ms = floor(d.total_processing_time_ms / d.event_count);
+
+delete m from event_metrics m
+join (
+    select min(id) as keep_id, metric_date, event_type, consumer_worker_id, status
+    from event_metrics
+    group by metric_date, event_type, consumer_worker_id, status
+    having count(*) > 1
+) d on m.metric_date = d.metric_date and m.event_type = d.event_type
+    and m.consumer_worker_id <=> d.consumer_worker_id and m.status = d.status and m.id <> d.keep_id;
+
+drop index idx_event_metrics_key on event_metrics;
+create unique index uk_event_metrics_key on event_metrics (metric_date, event_type, consumer_worker_id, status);
@@ -0,0 +1,4 @@
+-- Serialized log-linear latency histograms, merged on every metrics flush
+alter table event_metrics
+    add column processing_histogram blob,
+    add column queue_wait_histogram blob;
@@ -0,0 +1,5 @@
+-- Payloads written by a binary codec go to event_payload; event_data keeps the JSON written by the json codec
+alter table workers_event
+    add column payload_codec varchar(32) not null default 'json',
+    add column event_payload longblob,
+    modify column event_data json null;
@@ -1,26 +1,70 @@
 package com.example.eventbus;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
+import com.example.eventbus.blob.BlobStore;
+import com.example.eventbus.codec.EventPayloadCodecs;
+import com.example.eventbus.dispatch.EventSignal;
 import com.example.eventbus.domain.EventConsumption;
+import com.example.eventbus.domain.EventMetrics;
 import com.example.eventbus.domain.EventStatus;
+import com.example.eventbus.domain.EventSubscription;
+import com.example.eventbus.domain.SystemWorker;
 import com.example.eventbus.domain.WorkersEvent;
 import com.example.eventbus.domain.repository.EventConsumptionRepository;
+import com.example.eventbus.domain.repository.EventSubscriptionRepository;
+import com.example.eventbus.domain.repository.SystemWorkerRepository;
 import com.example.eventbus.domain.repository.WorkersEventRepository;
+import com.example.eventbus.dto.ClaimedEvent;
+import com.example.eventbus.dto.ConsumerLag;
 import com.example.eventbus.dto.ConsumptionResult;
+import com.example.eventbus.dto.EventAcknowledgement;
+import com.example.eventbus.dto.EventPublishRequest;
+import com.example.eventbus.dto.LatencyPercentiles;
 import com.example.eventbus.service.IEventBusService;
 import com.example.eventbus.service.IIdempotencyService;
+import com.example.eventbus.service.IMetricsService;
+import com.example.eventbus.worker.consumer.CsvFilePayload;
 import com.example.eventbus.worker.consumer.CsvProcessorConsumer;
 import com.example.eventbus.worker.producer.FtpDownloadProducer;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest
-@TestPropertySource(properties = "eventbus.scheduler.enabled=false")
+@TestPropertySource(properties = {
+    "eventbus.scheduler.enabled=false",
+    "eventbus.metrics.flush.enabled=false",
+    "eventbus.codec.event-types=codec.smile.test:smile+deflate,codec.cbor.test:cbor",
+    "eventbus.blob.threshold-bytes=4096",
+    "eventbus.blob.gc-grace=PT0S"
+})
 class EventBusIntegrationTest {
 
     @Autowired
@@ -41,6 +85,44 @@ class EventBusIntegrationTest {
     @Autowired
     private EventConsumptionRepository eventConsumptionRepository;
 
+    @Autowired
+    private SystemWorkerRepository systemWorkerRepository;
+
+    @Autowired
+    private EventSubscriptionRepository eventSubscriptionRepository;
+
+    @Autowired
+    private EventSignal eventSignal;
+
+    @Autowired
+    private IMetricsService metricsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EventPayloadCodecs payloadCodecs;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // The metrics service is a singleton, so counters recorded by an earlier, rolled-back test would otherwise be
+    // flushed by the next one
+    @BeforeEach
+    void discardPendingMetrics() {
+        Object target = AopTestUtils.getTargetObject(metricsService);
+        ((Map<?, ?>) ReflectionTestUtils.getField(target, "counters")).clear();
+    }
+
     @Test
     @Transactional
     void eventLifecycleCompletesSuccessfully() {
@@ -59,10 +141,11 @@ class EventBusIntegrationTest {
         assertThat(result.isSuccess()).isTrue();
 
         String resultHash = idempotencyService.calculateResultHash(result.getResultData());
+        assertThat(result.getResultHash()).isEqualTo(resultHash);
         eventBusService.markEventSuccess(event.getEventUuid(), consumerWorkerId, resultHash);
 
         WorkersEvent updatedEvent = workersEventRepository.findByEventUuid(event.getEventUuid()).orElseThrow();
-        assertThat(updatedEvent.getStatus()).isEqualTo(EventStatus.SUCCESS);
+        assertThat(updatedEvent.getStatus()).isEqualTo(EventStatus.PENDING);
 
         EventConsumption consumption = eventConsumptionRepository
             .findByEventUuidAndConsumerWorker_Id(event.getEventUuid(), consumerWorkerId)
@@ -71,4 +154,599 @@ class EventBusIntegrationTest {
         assertThat(consumption.getIdempotencyKey()).isNotBlank();
         assertThat(consumption.getResultHash()).isEqualTo(resultHash);
     }
+
+    @Test
+    @Transactional
+    void claimBatchClaimsEachEventOnce() {
+        ftpDownloadProducer.triggerDirectoryScan();
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+
+        List<ClaimedEvent> claimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofMinutes(5));
+        assertThat(claimed).isNotEmpty();
+
+        EventConsumption consumption = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(claimed.get(0).getEventUuid(), consumerWorkerId)
+            .orElseThrow();
+        assertThat(consumption.getStatus()).isEqualTo(EventStatus.PROCESSING);
+        assertThat(consumption.getIdempotencyKey()).isNotBlank();
+
+        assertThat(eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofMinutes(5))).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void expiredLeasesAreReturnedToClaimablePool() {
+        ftpDownloadProducer.triggerDirectoryScan();
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+
+        List<ClaimedEvent> claimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofSeconds(-1));
+        assertThat(claimed).isNotEmpty();
+
+        assertThat(eventBusService.releaseExpiredLeases()).isGreaterThanOrEqualTo(claimed.size());
+
+        EventConsumption released = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(claimed.get(0).getEventUuid(), consumerWorkerId)
+            .orElseThrow();
+        assertThat(released.getStatus()).isEqualTo(EventStatus.FAILED_RETRYABLE);
+        assertThat(released.getLeaseOwner()).isNull();
+        assertThat(eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofMinutes(5))).isNotEmpty();
+    }
+
+    @Test
+    @Transactional
+    void everySubscriberReceivesEachEvent() {
+        SystemWorker auditWorker = new SystemWorker();
+        auditWorker.setWorkerName("audit-consumer");
+        auditWorker.setClassName("AuditConsumer");
+        auditWorker = systemWorkerRepository.save(auditWorker);
+
+        ftpDownloadProducer.triggerDirectoryScan();
+        Long csvWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+
+        List<ClaimedEvent> csvClaimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, csvWorkerId, 10,
+            Duration.ofMinutes(5));
+        assertThat(csvClaimed).isNotEmpty();
+        String eventUuid = csvClaimed.get(0).getEventUuid();
+        eventBusService.markEventSuccess(eventUuid, csvWorkerId, null);
+
+        List<ClaimedEvent> auditClaimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, auditWorker.getId(), 10,
+            Duration.ofMinutes(5));
+        assertThat(auditClaimed).extracting(ClaimedEvent::getEventUuid).contains(eventUuid);
+        assertThat(eventConsumptionRepository.findByEventUuidAndConsumerWorker_Id(eventUuid, csvWorkerId).orElseThrow()
+            .getStatus()).isEqualTo(EventStatus.SUCCESS);
+    }
+
+    @Test
+    @Transactional
+    void eventsCommittedBelowAVerifiedCursorAreRecovered() {
+        Long csvWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        String late = eventBusService.publishEvent(null, "sweeper.test", Map.of("fileName", "late.csv"));
+        String first = eventBusService.publishEvent(null, "sweeper.test", Map.of("fileName", "first.csv"));
+        // The lower-id event stays invisible to the claim and the verification sweeps, as if it had not committed yet
+        entityManager.flush();
+        jdbcTemplate.update("update workers_event set event_type = 'sweeper.hidden' where id = ?",
+            workersEventRepository.findByEventUuid(late).orElseThrow().getId());
+        assertThat(eventBusService.claimBatch("sweeper.test", csvWorkerId, 10, Duration.ofMinutes(5)))
+            .extracting(ClaimedEvent::getEventUuid)
+            .containsExactly(first);
+        verifySubscriptionCursors();
+
+        // The cursor verified through the first event, which lies above the late one
+        entityManager.flush();
+        Long lateId = workersEventRepository.findByEventUuid(late).orElseThrow().getId();
+        assertThat(eventSubscriptionRepository.findByConsumerWorker_IdAndEventType(csvWorkerId, "sweeper.test"))
+            .get()
+            .extracting(EventSubscription::getVerifiedEventId)
+            .isEqualTo(workersEventRepository.findByEventUuid(first).orElseThrow().getId());
+        jdbcTemplate.update("update workers_event set event_type = 'sweeper.test' where id = ?", lateId);
+        entityManager.clear();
+        assertThat(eventBusService.claimBatch("sweeper.test", csvWorkerId, 10, Duration.ofMinutes(5))).isEmpty();
+        assertThat(eventBusService.recoverSkippedEvents(Duration.ofMinutes(1), Duration.ZERO)).isZero();
+        assertThat(eventConsumptionRepository.findByEventUuidAndConsumerWorker_Id(late, csvWorkerId)).isEmpty();
+        assertThat(eventBusService.recoverSkippedEvents(Duration.ofMinutes(1), Duration.ofHours(1))).isEqualTo(1);
+        assertThat(eventConsumptionRepository.findByEventUuidAndConsumerWorker_Id(late, csvWorkerId)).isPresent();
+
+        assertThat(eventBusService.claimBatch("sweeper.test", csvWorkerId, 10, Duration.ofMinutes(5)))
+            .extracting(ClaimedEvent::getEventUuid)
+            .containsExactly(late);
+    }
+
+    @Test
+    @Transactional
+    void archivalWaitsForLaggingSubscribers() {
+        SystemWorker auditWorker = new SystemWorker();
+        auditWorker.setWorkerName("archive-audit-consumer");
+        auditWorker.setClassName("AuditConsumer");
+        auditWorker = systemWorkerRepository.save(auditWorker);
+        eventSubscriptionRepository.save(new EventSubscription(auditWorker, "archive.test"));
+        String eventUuid = eventBusService.publishEvent(null, "archive.test", Map.of("fileName", "archive.csv"));
+        Long csvWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        assertThat(eventBusService.claimBatch("archive.test", csvWorkerId, 10, Duration.ofMinutes(5)))
+            .extracting(ClaimedEvent::getEventUuid)
+            .containsExactly(eventUuid);
+        eventBusService.markEventSuccess(eventUuid, csvWorkerId, null);
+        verifySubscriptionCursors();
+        backdate(eventUuid);
+
+        eventBusService.archiveOldEvents(1);
+        entityManager.clear();
+        assertThat(workersEventRepository.findByEventUuid(eventUuid).orElseThrow().getStatus()).isEqualTo(EventStatus.PENDING);
+
+        assertThat(eventBusService.claimBatch("archive.test", auditWorker.getId(), 10, Duration.ofMinutes(5)))
+            .extracting(ClaimedEvent::getEventUuid)
+            .containsExactly(eventUuid);
+        eventBusService.markEventSuccess(eventUuid, auditWorker.getId(), null);
+        verifySubscriptionCursors();
+
+        eventBusService.archiveOldEvents(1);
+        entityManager.clear();
+        assertThat(workersEventRepository.findByEventUuid(eventUuid).orElseThrow().getStatus()).isEqualTo(EventStatus.ARCHIVED);
+    }
+
+        @Test
+    @Transactional
+    void retryableFailuresBackOffUntilRetriesAreExhausted() {
+        ftpDownloadProducer.triggerDirectoryScan();
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+
+        List<ClaimedEvent> claimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 1,
+            Duration.ofMinutes(5));
+        String eventUuid = claimed.get(0).getEventUuid();
+        eventBusService.markEventFailed(eventUuid, consumerWorkerId, new IllegalStateException("downstream unavailable"), true);
+
+        EventConsumption consumption = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
+            .orElseThrow();
+        assertThat(consumption.getStatus()).isEqualTo(EventStatus.FAILED_RETRYABLE);
+        assertThat(consumption.getNextAttemptAt()).isAfter(Instant.now());
+        assertThat(eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10, Duration.ofMinutes(5)))
+            .extracting(ClaimedEvent::getEventUuid)
+            .doesNotContain(eventUuid);
+
+        consumption.setAttemptNumber(csvProcessorConsumer.getConsumerWorker().getMaxRetries());
+        consumption.setNextAttemptAt(Instant.now().minusSeconds(1));
+        eventConsumptionRepository.saveAndFlush(consumption);
+        assertThat(eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10, Duration.ofMinutes(5)))
+            .extracting(ClaimedEvent::getEventUuid)
+            .contains(eventUuid);
+        assertThat(eventBusService.markEventFailed(eventUuid, consumerWorkerId,
+            new IllegalStateException("downstream unavailable"), true)).isTrue();
+
+        EventConsumption exhausted = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
+            .orElseThrow();
+        assertThat(exhausted.getStatus()).isEqualTo(EventStatus.FAILED_PERMANENT);
+        assertThat(exhausted.getNextAttemptAt()).isNull();
+    }
+
+    @Test
+    @Transactional
+    void completionsAfterALostLeaseAreDiscarded() {
+        ftpDownloadProducer.triggerDirectoryScan();
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        String eventUuid = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 1,
+            Duration.ofSeconds(-1)).get(0).getEventUuid();
+        eventBusService.releaseExpiredLeases();
+
+        assertThat(eventBusService.markEventSuccess(eventUuid, consumerWorkerId, "stale")).isFalse();
+        assertThat(eventBusService.markEventFailed(eventUuid, consumerWorkerId, new IllegalStateException("stale"), false))
+            .isFalse();
+        EventConsumption released = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
+            .orElseThrow();
+        assertThat(released.getStatus()).isEqualTo(EventStatus.FAILED_RETRYABLE);
+
+        // Re-claimed by another node: the stale worker must not complete the new attempt
+        released.setStatus(EventStatus.PROCESSING);
+        released.setLeaseOwner("other-node");
+        eventConsumptionRepository.saveAndFlush(released);
+        assertThat(eventBusService.markEventSuccess(eventUuid, consumerWorkerId, "stale")).isFalse();
+        EventConsumption reclaimed = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(eventUuid, consumerWorkerId)
+            .orElseThrow();
+        assertThat(reclaimed.getStatus()).isEqualTo(EventStatus.PROCESSING);
+        assertThat(reclaimed.getLeaseOwner()).isEqualTo("other-node");
+        assertThat(reclaimed.getResultHash()).isNull();
+    }
+
+    @Test
+    @Transactional
+    void publishEventsStoresWholeBatch() {
+        List<EventPublishRequest> requests = new ArrayList<>();
+        for (int part = 1; part <= 3; part++) {
+            EventPublishRequest request = new EventPublishRequest();
+            request.setProducerWorkerId(ftpDownloadProducer.getWorkerId());
+            request.setEventType(FtpDownloadProducer.EVENT_TYPE);
+            request.setEventData(Map.of("fileName", "part-" + part + ".csv", "csvContent", "id,amount\n" + part + ",10.0"));
+            request.setCorrelationId("batch-1");
+            request.setPartNumber(part);
+            request.setPartsCount(3);
+            requests.add(request);
+        }
+
+        List<String> eventUuids = eventBusService.publishEvents(requests);
+
+        assertThat(eventUuids).hasSize(3).doesNotHaveDuplicates();
+        WorkersEvent last = workersEventRepository.findByEventUuid(eventUuids.get(2)).orElseThrow();
+        assertThat(last.getPartNumber()).isEqualTo(3);
+        assertThat(last.getPartsCount()).isEqualTo(3);
+        assertThat(last.getCorrelationId()).isEqualTo("batch-1");
+        assertThat(last.getStatus()).isEqualTo(EventStatus.PENDING);
+    }
+
+    @Test
+    @Transactional
+    void producerBatchesLeaveCallerRequestsUntouched() {
+        Map<String, Object> data = Map.of("fileName", "untouched.csv", "csvContent", "id,amount\n1,1.0");
+        EventPublishRequest request = new EventPublishRequest();
+        request.setEventType(FtpDownloadProducer.EVENT_TYPE);
+        request.setEventData(data);
+        request.setCorrelationId("untouched");
+
+        String eventUuid = ftpDownloadProducer.publishEvents(List.of(request)).get(0);
+
+        assertThat(request.getProducerWorkerId()).isNull();
+        assertThat(request.getEventData()).isSameAs(data);
+        WorkersEvent event = workersEventRepository.findByEventUuid(eventUuid).orElseThrow();
+        assertThat(event.getProducerWorker().getId()).isEqualTo(ftpDownloadProducer.getWorkerId());
+        assertThat(event.getCorrelationId()).isEqualTo("untouched");
+    }
+
+    @Test
+    @Transactional
+    void acknowledgeBatchRecordsEveryOutcome() {
+        List<EventPublishRequest> requests = new ArrayList<>();
+        for (int part = 1; part <= 2; part++) {
+            EventPublishRequest request = new EventPublishRequest();
+            request.setEventType(FtpDownloadProducer.EVENT_TYPE);
+            request.setEventData(Map.of("fileName", "part-" + part + ".csv", "csvContent", "id,amount\n" + part + ",10.0"));
+            requests.add(request);
+        }
+        eventBusService.publishEvents(requests);
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+
+        List<ClaimedEvent> claimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofMinutes(5));
+        assertThat(claimed).hasSizeGreaterThanOrEqualTo(2);
+        List<WorkersEvent> events = eventBusService.loadEvents(claimed.stream().map(ClaimedEvent::getId).toList());
+        List<ConsumptionResult> results = csvProcessorConsumer.consumeBatch(events);
+        assertThat(results).hasSize(events.size()).allMatch(ConsumptionResult::isSuccess);
+
+        Map<String, ConsumptionResult> outcomes = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            outcomes.put(events.get(i).getEventUuid(), i == 0 ? ConsumptionResult.failure("rejected", false) : results.get(i));
+        }
+        eventBusService.acknowledgeBatch(consumerWorkerId, outcomes);
+
+        assertThat(eventConsumptionRepository.findByEventUuidAndConsumerWorker_Id(events.get(0).getEventUuid(), consumerWorkerId)
+            .orElseThrow().getStatus()).isEqualTo(EventStatus.FAILED_PERMANENT);
+        EventConsumption succeeded = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(events.get(1).getEventUuid(), consumerWorkerId)
+            .orElseThrow();
+        assertThat(succeeded.getStatus()).isEqualTo(EventStatus.SUCCESS);
+        assertThat(succeeded.getResultHash()).isEqualTo(idempotencyService.calculateResultHash(results.get(1).getResultData()));
+        assertThat(succeeded.getLeaseOwner()).isNull();
+    }
+
+    @Test
+    @Transactional
+    void bulkAcknowledgementsUpdateEveryConsumptionAndAggregateMetrics() {
+        List<EventPublishRequest> requests = new ArrayList<>();
+        for (int part = 1; part <= 3; part++) {
+            EventPublishRequest request = new EventPublishRequest();
+            request.setEventType(FtpDownloadProducer.EVENT_TYPE);
+            request.setEventData(Map.of("fileName", "bulk-" + part + ".csv", "csvContent", "id,amount\n" + part + ",1.0"));
+            requests.add(request);
+        }
+        eventBusService.publishEvents(requests);
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        List<ClaimedEvent> claimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofMinutes(5));
+        assertThat(claimed).hasSizeGreaterThanOrEqualTo(3);
+        long successBefore = successCount(consumerWorkerId);
+
+        List<EventAcknowledgement> succeeded = claimed.subList(1, claimed.size()).stream()
+            .map(event -> EventAcknowledgement.success(event.getEventUuid(), consumerWorkerId, "hash-" + event.getId()))
+            .toList();
+        assertThat(eventBusService.markEventsSuccess(succeeded)).isEqualTo(succeeded.size());
+        String failedUuid = claimed.get(0).getEventUuid();
+        assertThat(eventBusService.markEventsFailed(List.of(
+            EventAcknowledgement.failure(failedUuid, consumerWorkerId, "downstream unavailable", true)))).isEqualTo(1);
+
+        EventConsumption last = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(claimed.get(claimed.size() - 1).getEventUuid(), consumerWorkerId)
+            .orElseThrow();
+        assertThat(last.getStatus()).isEqualTo(EventStatus.SUCCESS);
+        assertThat(last.getResultHash()).isEqualTo("hash-" + claimed.get(claimed.size() - 1).getId());
+        assertThat(last.getLeaseOwner()).isNull();
+        EventConsumption failed = eventConsumptionRepository.findByEventUuidAndConsumerWorker_Id(failedUuid, consumerWorkerId)
+            .orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(EventStatus.FAILED_RETRYABLE);
+        assertThat(failed.getErrorMessage()).isEqualTo("downstream unavailable");
+        assertThat(failed.getNextAttemptAt()).isAfter(Instant.now());
+        assertThat(successCount(consumerWorkerId) - successBefore).isEqualTo(succeeded.size());
+    }
+
+    @Test
+    @Transactional
+    void bulkAcknowledgementsSkipConsumptionsThatLostTheirLease() {
+        ftpDownloadProducer.triggerDirectoryScan();
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        List<ClaimedEvent> claimed = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, 10,
+            Duration.ofSeconds(-1));
+        assertThat(claimed).isNotEmpty();
+        eventBusService.releaseExpiredLeases();
+
+        assertThat(eventBusService.markEventsSuccess(claimed.stream()
+            .map(event -> EventAcknowledgement.success(event.getEventUuid(), consumerWorkerId, "stale"))
+            .toList())).isZero();
+        assertThat(eventBusService.markEventsFailed(List.of(
+            EventAcknowledgement.failure(claimed.get(0).getEventUuid(), consumerWorkerId, "stale", false)))).isZero();
+
+        EventConsumption released = eventConsumptionRepository
+            .findByEventUuidAndConsumerWorker_Id(claimed.get(0).getEventUuid(), consumerWorkerId)
+            .orElseThrow();
+        assertThat(released.getStatus()).isEqualTo(EventStatus.FAILED_RETRYABLE);
+        assertThat(released.getResultHash()).isNull();
+        assertThat(released.getErrorMessage()).isNotEqualTo("stale");
+    }
+
+    @Test
+    @Transactional
+    void latencyPercentilesMergeFlushedHistograms() {
+        String eventType = "latency.test";
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        for (int i = 0; i < 98; i++) {
+            metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 10);
+        }
+        metricsService.flush();
+        metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 2_000);
+        metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 2_000);
+        metricsService.recordQueueWait(eventType, consumerWorkerId, 250);
+        metricsService.flush();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LatencyPercentiles processing = metricsService.getProcessingPercentiles(eventType, EventStatus.SUCCESS,
+            today.minusDays(7), today);
+        assertThat(processing.getCount()).isEqualTo(100);
+        assertThat(processing.getP50()).isEqualTo(10);
+        assertThat(processing.getP99()).isBetween(2_000L, 2_063L);
+        LatencyPercentiles queueWait = metricsService.getQueueWaitPercentiles(eventType, today.minusDays(7), today);
+        assertThat(queueWait.getCount()).isEqualTo(1);
+        assertThat(queueWait.getP50()).isBetween(250L, 257L);
+    }
+
+    @Test
+    void flushesCommitEachKeyEvenWhenTheCallerRollsBack() {
+        String eventType = "metrics.rollback.test";
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 10);
+        metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 30);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(metricsService.flush()).isEqualTo(1);
+            status.setRollbackOnly();
+        });
+        assertThat(metricsService.flush()).isZero();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<EventMetrics> metrics = metricsService.getMetrics(eventType, today, today);
+        assertThat(metrics).hasSize(1);
+        assertThat(metrics.get(0).getEventCount()).isEqualTo(2);
+        assertThat(metrics.get(0).getTotalProcessingTimeMs()).isEqualTo(40);
+        assertThat(metricsService.getProcessingPercentiles(eventType, EventStatus.SUCCESS, today, today).getCount())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void flushDropsKeysOfMissingWorkersAndWritesTheRest() {
+        String eventType = "metrics.missing.worker.test";
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        metricsService.recordEventProcessed(eventType, -1L, EventStatus.SUCCESS, 10);
+        metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 20);
+
+        assertThat(metricsService.flush()).isEqualTo(1);
+        metricsService.recordEventProcessed(eventType, consumerWorkerId, EventStatus.SUCCESS, 20);
+        assertThat(metricsService.flush()).isEqualTo(1);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        assertThat(metricsService.getMetrics(eventType, today, today))
+            .singleElement()
+            .satisfies(metrics -> {
+                assertThat(metrics.getConsumerWorker().getId()).isEqualTo(consumerWorkerId);
+                assertThat(metrics.getEventCount()).isEqualTo(2);
+            });
+    }
+
+    @Test
+    @Transactional
+    void binaryCodecsRoundTripTypedPayloads() {
+        Map<String, Object> data = Map.of("fileName", "codec.csv", "csvContent", "id,amount\n1,2.0", "rows", 1);
+        String jsonUuid = eventBusService.publishEvent(null, "codec.json.test", data);
+        String smileUuid = eventBusService.publishEvent(null, "codec.smile.test", data);
+        String cborUuid = eventBusService.publishEvent(null, "codec.cbor.test", data);
+        entityManager.flush();
+        entityManager.clear();
+
+        WorkersEvent json = workersEventRepository.findByEventUuid(jsonUuid).orElseThrow();
+        assertThat(json.getPayloadCodec()).isEqualTo(EventPayloadCodecs.JSON);
+        assertThat(json.getEventData()).startsWith("{").contains("codec.csv");
+        assertThat(json.getEventPayload()).isNull();
+        WorkersEvent smile = workersEventRepository.findByEventUuid(smileUuid).orElseThrow();
+        assertThat(smile.getPayloadCodec()).isEqualTo("smile+deflate");
+        assertThat(smile.getEventData()).isNull();
+        WorkersEvent cbor = workersEventRepository.findByEventUuid(cborUuid).orElseThrow();
+        assertThat(cbor.getPayloadCodec()).isEqualTo("cbor");
+
+        for (WorkersEvent event : List.of(json, smile, cbor)) {
+            CsvFilePayload payload = payloadCodecs.read(event, CsvFilePayload.class);
+            assertThat(payload.getFileName()).isEqualTo("codec.csv");
+            assertThat(payload.getCsvContent()).isEqualTo("id,amount\n1,2.0");
+            assertThat(payloadCodecs.read(event, JsonNode.class).path("rows").asInt()).isEqualTo(1);
+        }
+    }
+
+    // Not transactional: blobs are only deleted once the archiving transaction has committed
+    @Test
+    void largePayloadsAreOffloadedAndDeletedOnArchival() throws IOException {
+        String csvContent = "id,amount\n" + "1,2.0\n".repeat(2_000);
+        String eventUuid = eventBusService.publishEvent(null, "blob.test",
+            Map.of("fileName", "large.csv", "csvContent", csvContent));
+
+        WorkersEvent event = workersEventRepository.findByEventUuid(eventUuid).orElseThrow();
+        assertThat(event.getPayloadRef()).hasSize(64);
+        assertThat(event.getEventData()).isNull();
+        assertThat(event.getEventPayload()).isNull();
+        assertThat(blobStore.exists(event.getPayloadRef())).isTrue();
+        assertThat(payloadCodecs.read(event, CsvFilePayload.class).getCsvContent()).isEqualTo(csvContent);
+        assertThat(payloadCodecs.mapPayload(event).remaining()).isGreaterThan(4096);
+
+        jdbcTemplate.update("update workers_event set created_at = ? where id = ?",
+            Timestamp.from(Instant.now().minus(3, ChronoUnit.DAYS)), event.getId());
+        assertThat(eventBusService.archiveOldEvents(1)).isPositive();
+
+        assertThat(blobStore.exists(event.getPayloadRef())).isFalse();
+        assertThatThrownBy(() -> eventBusService.replayEvent(eventUuid)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void resultHashesIgnoreMapInsertionOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("rows", 3);
+        first.put("fileName", "a.csv");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("fileName", "a.csv");
+        second.put("rows", 3);
+
+        assertThat(idempotencyService.calculateResultHash(first))
+            .hasSize(64)
+            .isEqualTo(idempotencyService.calculateResultHash(second))
+            .isNotEqualTo(idempotencyService.calculateResultHash(Map.of("fileName", "b.csv", "rows", 3)));
+        assertThat(idempotencyService.resolveResultHash(ConsumptionResult.success(first).withResultHash("carried")))
+            .isEqualTo("carried");
+    }
+
+    @Test
+    void idempotencyKeysAreStoredAsBinaryAndRememberedOnceSucceeded() {
+        String eventType = "idempotency.test";
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        String eventUuid = eventBusService.publishEvent(null, eventType, Map.of("fileName", "idempotency.csv"));
+        assertThat(eventBusService.claimBatch(eventType, consumerWorkerId, 1, Duration.ofMinutes(5))).hasSize(1);
+        String idempotencyKey = idempotencyService.generateIdempotencyKey(eventUuid, consumerWorkerId);
+
+        assertThat(idempotencyKey).hasSize(64).isEqualTo(idempotencyService.generateIdempotencyKey(eventUuid, consumerWorkerId));
+        assertThat(eventConsumptionRepository.findByIdempotencyKey(idempotencyKey)).isPresent();
+        assertThat(idempotencyService.isAlreadyProcessed(idempotencyKey)).isFalse();
+
+        eventBusService.markEventSuccess(eventUuid, consumerWorkerId, "hash");
+        assertThat(idempotencyService.isAlreadyProcessed(idempotencyKey)).isTrue();
+
+        eventBusService.replayEvent(eventUuid);
+        assertThat(idempotencyService.isAlreadyProcessed(idempotencyKey)).isFalse();
+    }
+
+    @Test
+    @Transactional
+    void claimsAreCountedAndServiceCallsTimed() {
+        String eventType = "meters.test";
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        eventBusService.publishEvent(null, eventType, Map.of("fileName", "meters.csv"));
+
+        assertThat(eventBusService.claimBatch(eventType, consumerWorkerId, 10, Duration.ofMinutes(5))).hasSize(1);
+
+        assertThat(meterRegistry.get("eventbus.events.claimed").tag("event.type", eventType).counter().count())
+            .isEqualTo(1.0);
+        assertThat(meterRegistry.get("eventbus.service").tag("method", "claimBatch").timer().count())
+            .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    void consumerLagCountsOpenAndUndeliveredEvents() {
+        String eventType = "lag.test";
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        String claimedUuid = eventBusService.publishEvent(null, eventType, Map.of("fileName", "first.csv"));
+        assertThat(eventBusService.claimBatch(eventType, consumerWorkerId, 1, Duration.ofMinutes(5))).hasSize(1);
+        String undeliveredUuid = eventBusService.publishEvent(null, eventType, Map.of("fileName", "second.csv"));
+
+        ConsumerLag lag = eventBusService.getConsumerLag().stream()
+            .filter(candidate -> candidate.getEventType().equals(eventType)
+                && candidate.getConsumerWorkerId().equals(consumerWorkerId))
+            .findFirst()
+            .orElseThrow();
+        assertThat(lag.getPending()).isEqualTo(2);
+        Instant claimedAt = workersEventRepository.findByEventUuid(claimedUuid).orElseThrow().getCreatedAt();
+        assertThat(lag.getOldestPendingAt()).isCloseTo(claimedAt, within(1, ChronoUnit.MILLIS));
+        assertThat(eventBusService.findOldestPending(eventType, consumerWorkerId)).get()
+            .isEqualTo(lag.getOldestPendingAt());
+
+        eventBusService.markEventSuccess(claimedUuid, consumerWorkerId, "hash");
+
+        Instant undeliveredAt = workersEventRepository.findByEventUuid(undeliveredUuid).orElseThrow().getCreatedAt();
+        assertThat(eventBusService.findOldestPending(eventType, consumerWorkerId).orElseThrow())
+            .isCloseTo(undeliveredAt, within(1, ChronoUnit.MILLIS));
+    }
+
+    @Test
+    @Transactional
+    void publishedEventUuidsAreTimeOrdered() {
+        String first = eventBusService.publishEvent(ftpDownloadProducer.getWorkerId(), FtpDownloadProducer.EVENT_TYPE,
+            Map.of("fileName", "first.csv"));
+        String second = eventBusService.publishEvent(ftpDownloadProducer.getWorkerId(), FtpDownloadProducer.EVENT_TYPE,
+            Map.of("fileName", "second.csv"));
+
+        assertThat(UUID.fromString(first).version()).isEqualTo(7);
+        assertThat(UUID.fromString(second).version()).isEqualTo(7);
+        assertThat(UUID.fromString(first).compareTo(UUID.fromString(second))).isNegative();
+        assertThat(workersEventRepository.findByEventUuid(second)).isPresent();
+    }
+
+    @Test
+    @Transactional
+    void pollPendingEventsReturnsAtMostLimit() {
+        ftpDownloadProducer.triggerDirectoryScan();
+        ftpDownloadProducer.triggerDirectoryScan();
+
+        assertThat(eventBusService.pollPendingEvents(FtpDownloadProducer.EVENT_TYPE, 1)).hasSize(1);
+        assertThat(eventBusService.pollPendingEvents(FtpDownloadProducer.EVENT_TYPE, 0)).isEmpty();
+    }
+
+    @Test
+    void eventSignalAdvancesOnlyForSignalledEventType() {
+        long signalled = eventSignal.currentSequence("signal.test");
+        long other = eventSignal.currentSequence("signal.other");
+
+        eventSignal.signal(Set.of("signal.test"));
+        eventSignal.signal(Set.of("signal.test"));
+
+        assertThat(eventSignal.currentSequence("signal.test")).isEqualTo(signalled + 2);
+        assertThat(eventSignal.currentSequence("signal.other")).isEqualTo(other);
+    }
+
+    private long successCount(Long consumerWorkerId) {
+        metricsService.flush();
+        return metricsService.getMetrics(FtpDownloadProducer.EVENT_TYPE, LocalDate.now(ZoneOffset.UTC), LocalDate.now(ZoneOffset.UTC))
+            .stream()
+            .filter(metrics -> metrics.getStatus() == EventStatus.SUCCESS)
+            .filter(metrics -> metrics.getConsumerWorker() != null && consumerWorkerId.equals(metrics.getConsumerWorker().getId()))
+            .mapToLong(EventMetrics::getEventCount)
+            .sum();
+    }
+
+    // Two sweeps with a negative grace verify every subscription up to its cursor
+    private void verifySubscriptionCursors() {
+        eventBusService.recoverSkippedEvents(Duration.ofSeconds(-1), Duration.ZERO);
+        eventBusService.recoverSkippedEvents(Duration.ofSeconds(-1), Duration.ZERO);
+    }
+
+    private void backdate(String eventUuid) {
+        entityManager.flush();
+        jdbcTemplate.update("update workers_event set created_at = ? where id = ?",
+            Timestamp.from(Instant.now().minus(3, ChronoUnit.DAYS)),
+            workersEventRepository.findByEventUuid(eventUuid).orElseThrow().getId());
+    }
 }
@@ -0,0 +1,239 @@
+package com.example.eventbus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.example.eventbus.domain.EventStatus;
+import com.example.eventbus.domain.repository.EventConsumptionRepository;
+import com.example.eventbus.domain.repository.EventMetricsRepository;
+import com.example.eventbus.domain.repository.EventSubscriptionRepository;
+import com.example.eventbus.domain.repository.EventTypeSignalRepository;
+import com.example.eventbus.domain.repository.SystemWorkerRepository;
+import com.example.eventbus.domain.repository.WorkersEventRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Runs each repository query in a rolled-back transaction, captures the SQL Hibernate prepares for it and explains
+// that statement. H2 prints the chosen index in its plan and "tableScan" for any table read without one. An insert's
+// plan names no index, so an upsert is checked for the unique key its ON DUPLICATE KEY UPDATE relies on instead.
+// H2 costs plans from row counts and column selectivity, and on empty tables it simply prefers the narrowest index, so
+// the test gets its own database holding a month of traffic, analyzed before anything is explained.
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+    "eventbus.scheduler.enabled=false",
+    "spring.datasource.url=jdbc:h2:mem:queryplan;MODE=MYSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.eventbus.RecordingStatementInspector"
+})
+class QueryPlanIntegrationTest {
+
+    private static final String UUID = "018f3c2a-7b4c-7000-8000-00000000abcd";
+    private static final String KEY = "ab".repeat(32);
+    private static final List<EventStatus> OPEN = List.of(EventStatus.PENDING, EventStatus.PROCESSING,
+        EventStatus.FAILED_RETRYABLE);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WorkersEventRepository events;
+
+    @Autowired
+    private EventConsumptionRepository consumptions;
+
+    @Autowired
+    private EventMetricsRepository metrics;
+
+    @Autowired
+    private EventSubscriptionRepository subscriptions;
+
+    @Autowired
+    private EventTypeSignalRepository signals;
+
+    @Autowired
+    private SystemWorkerRepository workers;
+
+    // 20 event types and 10 consumers; all but the newest events are archived and all but the newest consumptions
+    // succeeded, as on a node that keeps up with its load
+    @BeforeAll
+    void seedTraffic() {
+        jdbcTemplate.update("insert into system_workers (worker_name, class_name, version, enabled, max_retries, "
+            + "retry_delay_seconds, timeout_seconds, created_at, updated_at) select 'plan-consumer-' || x, 'Consumer', "
+            + "1, true, 3, 60, 300, current_timestamp, current_timestamp from system_range(1, 8)");
+        jdbcTemplate.update("insert into workers_event (id, event_uuid, event_type, event_version, event_data, status, "
+            + "retry_count, created_at, updated_at) select x, random_uuid(), 'type-' || mod(x, 20), 1, '{}', "
+            + "case when x <= 9000 then 'ARCHIVED' else 'PENDING' end, 0, "
+            + "dateadd('SECOND', (x - 10000) * 260, current_timestamp), current_timestamp from system_range(1, 10000)");
+        jdbcTemplate.update("insert into event_consumption (id, event_uuid, event_type, consumer_worker_id, status, "
+            + "attempt_number, created_at, updated_at, next_attempt_at, idempotency_key) "
+            + "select e.id * 100 + w.id, e.event_uuid, e.event_type, w.id, case when e.id <= 9900 then 'SUCCESS' "
+            + "when mod(e.id, 3) = 0 then 'PROCESSING' when mod(e.id, 3) = 1 then 'PENDING' else 'FAILED_RETRYABLE' end, "
+            + "1, e.created_at, e.created_at, e.created_at, secure_rand(32) from workers_event e, system_workers w");
+        jdbcTemplate.update("insert into event_metrics (metric_date, event_type, consumer_worker_id, status, event_count, "
+            + "total_processing_time_ms, created_at, updated_at) select dateadd('DAY', -d.x, current_date), 'type-' || t.x, "
+            + "w.id, s.status, 1, 1, current_timestamp, current_timestamp from system_range(0, 29) d, "
+            + "system_range(0, 19) t, system_workers w, (values ('SUCCESS'), ('FAILED_RETRYABLE'), ('PROCESSING')) s(status)");
+        jdbcTemplate.update("insert into event_subscription (consumer_worker_id, event_type, last_dispatched_event_id, "
+            + "verified_event_id, created_at, updated_at) select w.id, 'type-' || t.x, 10000, 10000, current_timestamp, "
+            + "current_timestamp from system_range(0, 19) t, system_workers w");
+        jdbcTemplate.update("insert into event_signal (event_type, published_sequence, updated_at) "
+            + "select 'type-' || x, 500, current_timestamp from system_range(0, 19)");
+        jdbcTemplate.execute("analyze");
+    }
+
+    Stream<Arguments> repositoryQueries() {
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.now();
+        return Stream.of(
+            arguments("WorkersEventRepository.findByEventUuid", "uk_workers_event_uuid",
+                query(() -> events.findByEventUuid(UUID))),
+            arguments("WorkersEventRepository.findClaimedByEventUuidIn", "uk_workers_event_uuid",
+                query(() -> events.findClaimedByEventUuidIn(List.of(UUID, UUID)))),
+            arguments("WorkersEventRepository.findByEventTypeAndStatusOrderByCreatedAtAsc",
+                "idx_workers_event_type_status_created",
+                query(() -> events.findByEventTypeAndStatusOrderByCreatedAtAsc("csv", EventStatus.PENDING,
+                    PageRequest.of(0, 10)))),
+            arguments("WorkersEventRepository.findByStatusAndCreatedAtBefore", "idx_workers_event_status_created",
+                query(() -> events.findByStatusAndCreatedAtBefore(EventStatus.PENDING, now))),
+            arguments("WorkersEventRepository.findUndelivered", "idx_workers_event_type_id",
+                query(() -> events.findUndelivered("csv", 0L, 1L, PageRequest.of(0, 50)))),
+            arguments("WorkersEventRepository.findUndeliveredBetween", "idx_workers_event_type_id",
+                query(() -> events.findUndeliveredBetween("csv", 0L, 100L, 1L))),
+            arguments("WorkersEventRepository.countByEventTypeAndIdGreaterThan", "idx_workers_event_type_id",
+                query(() -> events.countByEventTypeAndIdGreaterThan("csv", 0L))),
+            // Unseeded, H2 reads only event_type off idx_workers_event_type_status_created because that index also
+            // holds created_at; with traffic it seeks (event_type, id > cursor) and stops at the first row in id order
+            arguments("WorkersEventRepository.findCreatedAtAfter", "idx_workers_event_type_id",
+                query(() -> events.findCreatedAtAfter("csv", 0L, PageRequest.of(0, 1)))),
+            // Unseeded, H2 walks idx_workers_event_type_id up to throughId; with traffic the lookback window is a short
+            // range of pending events on idx_workers_event_type_status_created, sorted by id afterwards
+            arguments("WorkersEventRepository.findUndeliveredCreatedSince", "idx_workers_event_type_status_created",
+                query(() -> events.findUndeliveredCreatedSince("csv", now, 100L, 1L))),
+            arguments("WorkersEventRepository.findArchivableIds", "idx_workers_event_status_created",
+                query(() -> events.findArchivableIds(now, OPEN))),
+            arguments("WorkersEventRepository.bulkUpdateStatus", "primary_key",
+                query(() -> events.bulkUpdateStatus(EventStatus.ARCHIVED, now, List.of(1L, 2L)))),
+            arguments("WorkersEventRepository.findPayloadRefsByIdIn", "primary_key",
+                query(() -> events.findPayloadRefsByIdIn(List.of(1L, 2L)))),
+            arguments("WorkersEventRepository.findReferencedPayloadRefs", "idx_workers_event_payload_ref",
+                query(() -> events.findReferencedPayloadRefs(List.of("abcd", "ef01")))),
+            arguments("EventConsumptionRepository.findByEventUuidAndConsumerWorker_Id",
+                "uk_event_consumption_event_consumer",
+                query(() -> consumptions.findByEventUuidAndConsumerWorker_Id(UUID, 1L))),
+            arguments("EventConsumptionRepository.findByEventUuidInAndConsumerWorker_Id",
+                "uk_event_consumption_event_consumer",
+                query(() -> consumptions.findByEventUuidInAndConsumerWorker_Id(List.of(UUID, UUID), 1L))),
+            arguments("EventConsumptionRepository.findByIdempotencyKey", "uk_event_consumption_idempotency_key",
+                query(() -> consumptions.findByIdempotencyKey(KEY))),
+            arguments("EventConsumptionRepository.lockByEventUuidAndConsumerWorker",
+                "uk_event_consumption_event_consumer",
+                query(() -> consumptions.lockByEventUuidAndConsumerWorker(UUID, 1L))),
+            arguments("EventConsumptionRepository.lockDueRedeliveries", "idx_event_consumption_delivery",
+                query(() -> consumptions.lockDueRedeliveries(1L, "csv",
+                    List.of(EventStatus.PENDING, EventStatus.FAILED_RETRYABLE), now, PageRequest.of(0, 50)))),
+            arguments("EventConsumptionRepository.extendLease", "uk_event_consumption_event_consumer",
+                query(() -> consumptions.extendLease(UUID, 1L, "node", now, now))),
+            arguments("EventConsumptionRepository.markSucceeded", "primary_key",
+                query(() -> consumptions.markSucceeded(List.of(1L, 2L), "hash", "node", now))),
+            arguments("EventConsumptionRepository.markFailed", "primary_key",
+                query(() -> consumptions.markFailed(List.of(1L, 2L), EventStatus.FAILED_RETRYABLE, "error", null,
+                    now, "node", now))),
+            arguments("EventConsumptionRepository.deadLetterExpiredLeases", "idx_event_consumption_lease",
+                query(() -> consumptions.deadLetterExpiredLeases(now, "expired"))),
+            arguments("EventConsumptionRepository.releaseExpiredLeases", "idx_event_consumption_lease",
+                query(() -> consumptions.releaseExpiredLeases(now, "expired"))),
+            arguments("EventConsumptionRepository.resetForReplay", "uk_event_consumption_event_consumer",
+                query(() -> consumptions.resetForReplay(UUID, now))),
+            arguments("EventConsumptionRepository.countByConsumerWorker_IdAndStatus",
+                "idx_event_consumption_worker_status",
+                query(() -> consumptions.countByConsumerWorker_IdAndStatus(1L, EventStatus.SUCCESS))),
+            arguments("EventConsumptionRepository.summarizeByStatusIn", "idx_event_consumption_lease",
+                query(() -> consumptions.summarizeByStatusIn(OPEN))),
+            // Unseeded, H2 filters by worker alone on idx_event_consumption_worker_status; with traffic the delivery
+            // index narrows to one (worker, type) pair and its open statuses before joining the events by uuid
+            arguments("EventConsumptionRepository.findOldestEventCreatedAt", "idx_event_consumption_delivery",
+                query(() -> consumptions.findOldestEventCreatedAt(1L, "csv", OPEN))),
+            // An insert has no plan, so this checks that the key the flush upserts on is the unique one a duplicate
+            // is detected on; the histograms are then merged into the row it found or created
+            arguments("EventMetricsRepository.upsert", "uk_event_metrics_key",
+                query(() -> metrics.upsert(today, "csv", 1L, EventStatus.SUCCESS.name(), 1, 1, now))),
+            arguments("EventMetricsRepository.findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus",
+                "uk_event_metrics_key",
+                query(() -> metrics.findByMetricDateAndEventTypeAndConsumerWorker_IdAndStatus(today, "csv", 1L,
+                    EventStatus.SUCCESS))),
+            arguments("EventMetricsRepository.findByEventTypeAndMetricDateBetween", "idx_event_metrics_type_date",
+                query(() -> metrics.findByEventTypeAndMetricDateBetween("csv", today, today))),
+            arguments("EventMetricsRepository.countByEventTypeAndMetricDateAndStatus", "idx_event_metrics_type_date",
+                query(() -> metrics.countByEventTypeAndMetricDateAndStatus("csv", today, EventStatus.SUCCESS))),
+            arguments("EventSubscriptionRepository.lockByConsumerWorkerAndEventType",
+                "uk_event_subscription_consumer_type",
+                query(() -> subscriptions.lockByConsumerWorkerAndEventType(1L, "csv"))),
+            arguments("EventSubscriptionRepository.lockAll", "primary_key",
+                query(() -> subscriptions.lockAll())),
+            arguments("EventTypeSignalRepository.findPublishedSequence", "primary_key",
+                query(() -> signals.findPublishedSequence("csv"))),
+            arguments("EventTypeSignalRepository.increment", "primary_key",
+                query(() -> signals.increment("csv", now))),
+            arguments("SystemWorkerRepository.findByWorkerName", "uk_system_workers_worker_name",
+                query(() -> workers.findByWorkerName("csv-processor"))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void repositoryQueryUsesIndex(String query, String expectedIndex, Runnable invocation) {
+        List<String> statements = RecordingStatementInspector.record(() ->
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                invocation.run();
+                status.setRollbackOnly();
+            }));
+        assertThat(statements).as(query).hasSize(1);
+        String statement = statements.get(0);
+
+        if (statement.toLowerCase(Locale.ROOT).startsWith("insert")) {
+            assertThat(uniqueIndexes(statement)).as(query).anyMatch(index -> index.contains(expectedIndex));
+        } else {
+            String plan = String.join("\n", jdbcTemplate.queryForList("explain " + statement, String.class));
+            assertThat(plan).as(query).doesNotContainIgnoringCase("tableScan");
+            assertThat(plan.toLowerCase(Locale.ROOT)).as(query).contains(expectedIndex);
+        }
+    }
+
+    // Unique indexes of the inserted table whose columns are all assigned by the insert, i.e. the keys a duplicate
+    // can be detected on
+    private List<String> uniqueIndexes(String insert) {
+        String lower = insert.toLowerCase(Locale.ROOT);
+        String table = lower.substring("insert into ".length(), lower.indexOf('(')).trim();
+        List<String> columns = List.of(lower.substring(lower.indexOf('(') + 1, lower.indexOf(')')).split("\\s*,\\s*"));
+        return jdbcTemplate.queryForList("select i.index_name from information_schema.indexes i "
+                + "where lower(i.table_name) = ? and i.index_type_name in ('PRIMARY KEY', 'UNIQUE INDEX') "
+                + "and not exists (select c.column_name from information_schema.index_columns c "
+                + "where c.index_name = i.index_name and c.table_name = i.table_name "
+                + "and lower(c.column_name) not in (" + String.join(", ", columns.stream().map(c -> "?").toList()) + "))",
+                String.class, Stream.concat(Stream.of(table), columns.stream()).toArray())
+            .stream()
+            .map(index -> index.toLowerCase(Locale.ROOT))
+            .toList();
+    }
+
+    private static Runnable query(Runnable invocation) {
+        return invocation;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.eventbus.benchmark;
+
+import static com.example.eventbus.benchmark.BenchmarkFixtures.newBatch;
+import static com.example.eventbus.benchmark.BenchmarkFixtures.rate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.eventbus.dto.ClaimedEvent;
+import com.example.eventbus.dto.EventAcknowledgement;
+import com.example.eventbus.service.IEventBusService;
+import com.example.eventbus.worker.consumer.CsvProcessorConsumer;
+import com.example.eventbus.worker.producer.FtpDownloadProducer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+// Run with -Deventbus.benchmark=true; batch size 1 is the per-event baseline that markEventSuccess used to pay.
+@SpringBootTest
+@EnabledIfSystemProperty(named = "eventbus.benchmark", matches = "true")
+@TestPropertySource(properties = {
+    "eventbus.scheduler.enabled=false",
+    "eventbus.reaper.enabled=false",
+    "eventbus.sweeper.enabled=false"
+})
+class AcknowledgeThroughputBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AcknowledgeThroughputBenchmarkTest.class);
+    private static final int EVENTS = 5_000;
+    private static final int PUBLISH_BATCH_SIZE = 500;
+
+    @Autowired
+    private CsvProcessorConsumer csvProcessorConsumer;
+
+    @Autowired
+    private IEventBusService eventBusService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100, 1000})
+    void markEventsSuccessThroughput(int batchSize) {
+        for (int published = 0; published < EVENTS; published += PUBLISH_BATCH_SIZE) {
+            eventBusService.publishEvents(newBatch(null, "ack-" + batchSize, published, PUBLISH_BATCH_SIZE));
+        }
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        List<ClaimedEvent> claimed = new ArrayList<>();
+        while (true) {
+            List<ClaimedEvent> batch = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId,
+                PUBLISH_BATCH_SIZE, Duration.ofMinutes(5));
+            if (batch.isEmpty()) {
+                break;
+            }
+            claimed.addAll(batch);
+        }
+
+        int acknowledged = 0;
+        long started = System.nanoTime();
+        for (int from = 0; from < claimed.size(); from += batchSize) {
+            List<EventAcknowledgement> acknowledgements = claimed.subList(from, Math.min(from + batchSize, claimed.size()))
+                .stream()
+                .map(event -> EventAcknowledgement.success(event.getEventUuid(), consumerWorkerId, null))
+                .toList();
+            acknowledged += eventBusService.markEventsSuccess(acknowledgements);
+        }
+        long nanos = System.nanoTime() - started;
+
+        LOGGER.info("markEventsSuccess batch size {}: {} acks in {} ms ({} acks/sec)", batchSize, acknowledged,
+            nanos / 1_000_000, rate(acknowledged, nanos));
+        assertThat(acknowledged).isEqualTo(claimed.size());
+    }
+}
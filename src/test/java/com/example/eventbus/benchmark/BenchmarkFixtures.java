@@ -0,0 +1,30 @@
+package com.example.eventbus.benchmark;
+
+import com.example.eventbus.dto.EventPublishRequest;
+import com.example.eventbus.worker.producer.FtpDownloadProducer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    // File names are prefix-<offset + i>.csv so every run publishes distinct events
+    static List<EventPublishRequest> newBatch(Long producerWorkerId, String prefix, int offset, int size) {
+        List<EventPublishRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            EventPublishRequest request = new EventPublishRequest();
+            request.setProducerWorkerId(producerWorkerId);
+            request.setEventType(FtpDownloadProducer.EVENT_TYPE);
+            request.setEventData(Map.of("fileName", prefix + "-" + (offset + i) + ".csv", "csvContent", "id,amount\n" + i + ",1.0"));
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    static long rate(int count, long nanos) {
+        return nanos == 0 ? 0 : count * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.eventbus.benchmark;
+
+import static com.example.eventbus.benchmark.BenchmarkFixtures.newBatch;
+import static com.example.eventbus.benchmark.BenchmarkFixtures.rate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.eventbus.service.IEventBusService;
+import com.example.eventbus.worker.consumer.CsvProcessorConsumer;
+import com.example.eventbus.worker.producer.FtpDownloadProducer;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+// Run with -Deventbus.benchmark=true; compare against -Deventbus.id.strategy=sequence or
+// -Dspring.jpa.properties.hibernate.jdbc.batch_size=1 to see the effect of batched inserts.
+@SpringBootTest
+@EnabledIfSystemProperty(named = "eventbus.benchmark", matches = "true")
+@TestPropertySource(properties = {
+    "eventbus.scheduler.enabled=false",
+    "eventbus.reaper.enabled=false",
+    "eventbus.sweeper.enabled=false"
+})
+class InsertThroughputBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InsertThroughputBenchmarkTest.class);
+    private static final int BATCHES = 20;
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private FtpDownloadProducer ftpDownloadProducer;
+
+    @Autowired
+    private CsvProcessorConsumer csvProcessorConsumer;
+
+    @Autowired
+    private IEventBusService eventBusService;
+
+    @Test
+    void publishAndClaimThroughput() {
+        long publishStarted = System.nanoTime();
+        for (int batch = 0; batch < BATCHES; batch++) {
+            eventBusService.publishEvents(newBatch(ftpDownloadProducer.getWorkerId(), "bench-" + batch, 0, BATCH_SIZE));
+        }
+        long publishNanos = System.nanoTime() - publishStarted;
+
+        Long consumerWorkerId = csvProcessorConsumer.getConsumerWorker().getId();
+        int claimed = 0;
+        long claimStarted = System.nanoTime();
+        while (true) {
+            int size = eventBusService.claimBatch(FtpDownloadProducer.EVENT_TYPE, consumerWorkerId, BATCH_SIZE,
+                Duration.ofMinutes(5)).size();
+            if (size == 0) {
+                break;
+            }
+            claimed += size;
+        }
+        long claimNanos = System.nanoTime() - claimStarted;
+
+        int published = BATCHES * BATCH_SIZE;
+        LOGGER.info("publishEvents: {} events in {} ms ({} events/sec)", published, publishNanos / 1_000_000,
+            rate(published, publishNanos));
+        LOGGER.info("claimBatch: {} events in {} ms ({} events/sec)", claimed, claimNanos / 1_000_000,
+            rate(claimed, claimNanos));
+        assertThat(claimed).isGreaterThanOrEqualTo(published);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.eventbus.blob;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemBlobStoreTest {
+
+    private static final byte[] CONTENT = "id,amount\n1,1.0".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reusedBlobsSurviveCollection() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(directory);
+        String reference = store.put(CONTENT);
+        backdate(reference);
+
+        assertThat(store.put(CONTENT)).isEqualTo(reference);
+        assertThat(store.deleteIfUnusedSince(reference, Instant.now().minus(Duration.ofHours(1)))).isFalse();
+        assertThat(store.open(reference).readAllBytes()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void unusedBlobsAreDeletedWithoutLeftovers() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(directory);
+        String reference = store.put(CONTENT);
+        backdate(reference);
+
+        assertThat(store.deleteIfUnusedSince(reference, Instant.now().minus(Duration.ofHours(1)))).isTrue();
+        assertThat(store.exists(reference)).isFalse();
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void putAfterDeletionStoresTheBlobAgain() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(directory);
+        String reference = store.put(CONTENT);
+        backdate(reference);
+        store.deleteIfUnusedSince(reference, Instant.now().minus(Duration.ofHours(1)));
+
+        assertThat(store.put(CONTENT)).isEqualTo(reference);
+        assertThat(store.map(reference).remaining()).isEqualTo(CONTENT.length);
+    }
+
+    private void backdate(String reference) throws Exception {
+        Path path = directory.resolve(reference.substring(0, 2)).resolve(reference.substring(2, 4)).resolve(reference);
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.eventbus.codec;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.eventbus.blob.FileSystemBlobStore;
+import com.example.eventbus.domain.WorkersEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventPayloadCodecsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void missingBlobsAreIoFailuresAndMalformedPayloadsAreInvalid() {
+        EventPayloadCodecs codecs = new EventPayloadCodecs(
+            List.of(new JacksonPayloadCodec(EventPayloadCodecs.JSON, new ObjectMapper())),
+            new FileSystemBlobStore(directory), EventPayloadCodecs.JSON, "", 1048576);
+
+        WorkersEvent offloaded = new WorkersEvent();
+        offloaded.setPayloadCodec(EventPayloadCodecs.JSON);
+        offloaded.setPayloadRef("0".repeat(64));
+        assertThatThrownBy(() -> codecs.read(offloaded, JsonNode.class)).isInstanceOf(UncheckedIOException.class);
+
+        WorkersEvent malformed = new WorkersEvent();
+        malformed.setPayloadCodec(EventPayloadCodecs.JSON);
+        malformed.setEventData("{not json");
+        assertThatThrownBy(() -> codecs.read(malformed, JsonNode.class)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.eventbus.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+
+class PersistenceConfigurationTest {
+
+    @Test
+    void flywayCreatesTheUuidColumnsForTheConfiguredStorage() {
+        assertThat(placeholder("binary", new FlywayProperties())).isEqualTo("binary(16)");
+        assertThat(placeholder("char", new FlywayProperties())).isEqualTo("char(36)");
+    }
+
+    @Test
+    void explicitFlywayPlaceholdersWin() {
+        FlywayProperties flyway = new FlywayProperties();
+        flyway.getPlaceholders().put("event_uuid_type", "varchar(36)");
+
+        assertThat(placeholder("binary", flyway)).isEqualTo("varchar(36)");
+    }
+
+    @Test
+    void unknownStorageIsRejected() {
+        assertThatThrownBy(() -> PersistenceConfiguration.eventUuidFlywayPlaceholder("text"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String placeholder(String uuidStorage, FlywayProperties flyway) {
+        PersistenceConfiguration.eventUuidFlywayPlaceholder(uuidStorage).postProcessAfterInitialization(flyway, "flyway");
+        return flyway.getPlaceholders().get("event_uuid_type");
+    }
+}
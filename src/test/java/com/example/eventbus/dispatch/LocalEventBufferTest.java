@@ -0,0 +1,134 @@
+package com.example.eventbus.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.eventbus.domain.WorkersEvent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class LocalEventBufferTest {
+
+    private static final String TYPE = "csv";
+
+    @Test
+    void everyReaderDrainsEveryEventOnce() {
+        LocalEventBuffer buffer = new LocalEventBuffer(16, 1024, true);
+        LocalEventBuffer.Reader first = buffer.reader(TYPE);
+        LocalEventBuffer.Reader second = buffer.reader(TYPE);
+
+        buffer.publish(events(1, 5));
+
+        assertThat(ids(first.drain())).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(ids(second.drain())).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(first.drain()).isEmpty();
+    }
+
+    @Test
+    void readersThatFallAFullRingBehindSkipOverwrittenEvents() {
+        LocalEventBuffer buffer = new LocalEventBuffer(4, 1024, true);
+        LocalEventBuffer.Reader reader = buffer.reader(TYPE);
+
+        buffer.publish(events(1, 10));
+        assertThat(ids(reader.drain())).containsExactly(7L, 8L, 9L, 10L);
+
+        buffer.publish(events(11, 13));
+        assertThat(ids(reader.drain())).containsExactly(11L, 12L, 13L);
+    }
+
+    @Test
+    void slotsAreReleasedOnceEveryReaderPassedThem() {
+        LocalEventBuffer buffer = new LocalEventBuffer(16, 1024, true);
+        LocalEventBuffer.Reader fast = buffer.reader(TYPE);
+        LocalEventBuffer.Reader slow = buffer.reader(TYPE);
+
+        buffer.publish(events(1, 3));
+        fast.drain();
+        assertThat(buffer.buffered(TYPE)).isEqualTo(3);
+
+        slow.drain();
+        assertThat(buffer.buffered(TYPE)).isZero();
+    }
+
+    @Test
+    void unreadTypesAndLargePayloadsAreNotBuffered() {
+        LocalEventBuffer buffer = new LocalEventBuffer(16, 8, true);
+        buffer.publish(events(1, 2));
+        assertThat(buffer.buffered(TYPE)).isZero();
+
+        LocalEventBuffer.Reader reader = buffer.reader(TYPE);
+        List<WorkersEvent> events = events(3, 4);
+        events.get(0).setEventData("{\"csvContent\":\"id,amount\"}");
+        buffer.publish(events);
+        assertThat(ids(reader.drain())).containsExactly(4L);
+    }
+
+    @Test
+    void concurrentPublishersAreDrainedInOrderWithoutDuplicates() throws Exception {
+        int publishers = 4;
+        int perPublisher = 20_000;
+        // small enough that the reader is overrun now and then
+        LocalEventBuffer buffer = new LocalEventBuffer(256, 1024, true);
+        LocalEventBuffer.Reader reader = buffer.reader(TYPE);
+        ExecutorService executor = Executors.newFixedThreadPool(publishers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> published = new ArrayList<>();
+        for (int p = 0; p < publishers; p++) {
+            long first = (long) p * perPublisher + 1;
+            published.add(executor.submit(() -> {
+                start.await();
+                for (long id = first; id < first + perPublisher; id++) {
+                    buffer.publish(events(id, id));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        List<Long> drained = new ArrayList<>();
+        while (!published.stream().allMatch(Future::isDone)) {
+            drained.addAll(ids(reader.drain()));
+        }
+        drained.addAll(ids(reader.drain()));
+        for (Future<?> future : published) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(new HashSet<>(drained)).hasSameSizeAs(drained);
+        long[] last = new long[publishers];
+        for (long id : drained) {
+            int publisher = (int) ((id - 1) / perPublisher);
+            assertThat(id).isGreaterThan(last[publisher]);
+            last[publisher] = id;
+        }
+        // the event published last is still in the ring when the reader catches up, and it is some publisher's last
+        Set<Long> lastIds = new HashSet<>();
+        for (int p = 0; p < publishers; p++) {
+            lastIds.add((long) (p + 1) * perPublisher);
+        }
+        assertThat(drained).containsAnyElementsOf(lastIds);
+    }
+
+    private static List<WorkersEvent> events(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId).mapToObj(id -> {
+            WorkersEvent event = new WorkersEvent();
+            event.setId(id);
+            event.setEventType(TYPE);
+            return event;
+        }).toList();
+    }
+
+    private static List<Long> ids(List<WorkersEvent> events) {
+        return events.stream().map(WorkersEvent::getId).toList();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.eventbus.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LoopbackEventSignalTest {
+
+    @Test
+    void unknownTypesStartAtZero() {
+        assertThat(new LoopbackEventSignal().currentSequence("csv")).isZero();
+    }
+
+    @Test
+    void signalAdvancesOnlyTheSignalledTypes() {
+        LoopbackEventSignal signal = new LoopbackEventSignal();
+
+        signal.signal(Set.of("csv", "xml"));
+        signal.signal(Set.of("csv"));
+
+        assertThat(signal.currentSequence("csv")).isEqualTo(2);
+        assertThat(signal.currentSequence("xml")).isEqualTo(1);
+        assertThat(signal.currentSequence("json")).isZero();
+    }
+
+    @Test
+    void concurrentFirstSignalsAreAllCounted() throws Exception {
+        LoopbackEventSignal signal = new LoopbackEventSignal();
+        int threads = 8;
+        int signalsPerThread = 1_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < signalsPerThread; j++) {
+                        signal.signal(Set.of("csv"));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(signal.currentSequence("csv")).isEqualTo((long) threads * signalsPerThread);
+    }
+}
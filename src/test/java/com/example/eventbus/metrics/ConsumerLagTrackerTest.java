@@ -0,0 +1,48 @@
+package com.example.eventbus.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.eventbus.dto.ConsumerLag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConsumerLagTrackerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConsumerLagTracker tracker = new ConsumerLagTracker(registry);
+
+    @Test
+    void publishesAndCompletionsAdjustTheReconciledCount() {
+        Instant oldest = Instant.now().minusSeconds(60);
+        tracker.reconcile(List.of(new ConsumerLag("csv", 1L, 10, oldest), new ConsumerLag("csv", 2L, 0, null)));
+
+        tracker.published("csv", 5);
+        tracker.completed("csv", 1L, 3);
+
+        assertThat(lag(1L)).isEqualTo(12.0);
+        assertThat(lag(2L)).isEqualTo(5.0);
+        assertThat(registry.get("eventbus.consumer.lag.oldest.age").tag("consumer", "1").timeGauge()
+            .value(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(60_000.0);
+    }
+
+    @Test
+    void reconciliationAndEmptyRefreshesReplaceStaleEstimates() {
+        tracker.reconcile(List.of(new ConsumerLag("csv", 1L, 4, Instant.now()), new ConsumerLag("csv", 2L, 4, Instant.now())));
+
+        tracker.reconcile(List.of(new ConsumerLag("csv", 1L, 7, Instant.now())));
+        assertThat(lag(1L)).isEqualTo(7.0);
+        assertThat(lag(2L)).isZero();
+
+        tracker.refreshOldestPending("csv", 1L, Optional.empty());
+        assertThat(lag(1L)).isZero();
+        assertThat(tracker.getConsumerLag()).allSatisfy(lag -> assertThat(lag.getOldestPendingAt()).isNull());
+    }
+
+    private double lag(Long consumerWorkerId) {
+        return registry.get("eventbus.consumer.lag").tag("consumer", String.valueOf(consumerWorkerId)).gauge().value();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.eventbus.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(5_000L, 5_000L + 5_000L / 32);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(9_900L, 9_900L + 9_900L / 32);
+        assertThat(histogram.getMax()).isBetween(10_000L, 10_000L + 10_000L / 32);
+    }
+
+    @Test
+    void serializedHistogramsMergeLikeRecordedValues() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            fast.record(3);
+        }
+        slow.record(60_000);
+
+        LatencyHistogram merged = LatencyHistogram.fromBytes(fast.toBytes());
+        merged.add(LatencyHistogram.fromBytes(slow.toBytes()));
+
+        assertThat(merged.getCount()).isEqualTo(100);
+        assertThat(merged.getValueAtPercentile(99)).isEqualTo(3);
+        assertThat(merged.getValueAtPercentile(100)).isBetween(60_000L, 60_000L + 60_000L / 32);
+        assertThat(fast.toBytes()).hasSizeLessThan(8);
+    }
+
+    @Test
+    void drainMovesCountsOut() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.record(-5);
+
+        LatencyHistogram drained = histogram.drain();
+
+        assertThat(histogram.isEmpty()).isTrue();
+        assertThat(drained.getCount()).isEqualTo(2);
+        assertThat(drained.getValueAtPercentile(50)).isZero();
+        assertThat(LatencyHistogram.fromBytes(null).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.eventbus.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.eventbus.dispatch.EventSignal;
+import com.example.eventbus.dispatch.LocalEventBuffer;
+import com.example.eventbus.domain.SystemWorker;
+import com.example.eventbus.domain.WorkersEvent;
+import com.example.eventbus.dto.ClaimedEvent;
+import com.example.eventbus.dto.ConsumptionResult;
+import com.example.eventbus.metrics.EventBusMeters;
+import com.example.eventbus.service.IEventBusService;
+import com.example.eventbus.service.IEventConsumer;
+import com.example.eventbus.service.IIdempotencyService;
+import com.example.eventbus.service.IWorkerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
+
+// The poll loops run on a mocked poller: each test runs the scheduled polls itself and sees every delay they ask for
+class EventBusSchedulerTest {
+
+    private static final String TYPE = "csv";
+    private static final Long CONSUMER_ID = 1L;
+
+    private final IWorkerRegistry workerRegistry = mock(IWorkerRegistry.class);
+    private final IEventBusService eventBusService = mock(IEventBusService.class);
+    private final IEventConsumer consumer = mock(IEventConsumer.class);
+    private final EventSignal eventSignal = mock(EventSignal.class);
+    private final ScheduledExecutorService poller = mock(ScheduledExecutorService.class);
+    private final ScheduledFuture<?> scheduledPoll = mock(ScheduledFuture.class);
+    private final LocalEventBuffer localEventBuffer = new LocalEventBuffer(16, 1024, true);
+    private final Deque<Runnable> scheduled = new ArrayDeque<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final AtomicLong nextEventId = new AtomicLong();
+    private EventBusScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        SystemWorker worker = new SystemWorker();
+        worker.setId(CONSUMER_ID);
+        worker.setWorkerName("csv-processor");
+        worker.setTimeoutSeconds(30);
+        when(consumer.getConsumerWorker()).thenReturn(worker);
+        when(consumer.getSupportedEventTypes()).thenReturn(List.of(TYPE));
+        when(consumer.consume(any())).thenReturn(ConsumptionResult.success(null));
+        when(workerRegistry.getAllConsumers()).thenReturn(List.of(consumer));
+        when(eventBusService.loadEvent(anyLong())).thenAnswer(invocation -> event(invocation.getArgument(0)));
+        when(scheduledPoll.cancel(false)).thenReturn(true);
+        when(poller.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS))).thenAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            delays.add(invocation.getArgument(1));
+            return scheduledPoll;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void permitsAreReleasedAfterSuccessFailureAndErrors() throws Exception {
+        start(2, 10, 0, 3, 50);
+        signalEveryPoll();
+        claimUpTo(Integer.MAX_VALUE);
+        when(consumer.consume(any()))
+            .thenReturn(ConsumptionResult.success(null))
+            .thenReturn(ConsumptionResult.failure("bad row", false))
+            .thenThrow(new IllegalStateException("consumer crashed"));
+
+        poll();
+        awaitIdle();
+        verify(eventBusService).markEventSuccess(any(), eq(CONSUMER_ID), any());
+        verify(eventBusService, times(2)).markEventFailed(any(), eq(CONSUMER_ID), any(), anyBoolean());
+
+        poll();
+        assertThat(claimLimits()).containsExactly(3, 3);
+    }
+
+    @Test
+    void rejectedSubmissionsReleaseTheirPermits() throws Exception {
+        start(1, 1, 0, 2, 50);
+        signalEveryPoll();
+        claimUpTo(Integer.MAX_VALUE);
+        // the executor rejects everything from now on while the mocked poller keeps scheduling polls
+        scheduler.shutdown();
+
+        poll();
+        assertThat(scheduler.getRejectedSubmissions()).isEqualTo(2);
+        assertThat(scheduler.getInFlight()).isZero();
+        assertThat(scheduler.getInFlight(TYPE)).isZero();
+
+        poll();
+        assertThat(claimLimits()).containsExactly(2, 2);
+    }
+
+    @Test
+    void inFlightNeverExceedsCapacity() throws Exception {
+        start(1, 3, 0, 256, 50);
+        signalEveryPoll();
+        claimUpTo(3);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(consumer.consume(any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(scheduler.getInFlight(), Math::max);
+            finish.await();
+            return ConsumptionResult.success(null);
+        });
+
+        poll();
+        poll();
+        poll();
+        assertThat(scheduler.getInFlight()).isEqualTo(scheduler.getCapacity());
+
+        finish.countDown();
+        awaitIdle();
+        // the third poll found no free slot and did not claim
+        assertThat(claimLimits()).containsExactly(4, 1);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(scheduler.getCapacity());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        // pollBatchSize, threadPoolSize, queueCapacity, maxInFlightPerEventType, maxInFlightPerConsumer, claim limit
+        "3, 4, 10, 0, 20, 3",
+        "50, 2, 3, 0, 20, 5",
+        "50, 4, 10, 0, 6, 6",
+        "50, 4, 10, 7, 20, 7"
+    })
+    void claimsAskForTheSmallestFreeSlotCount(int pollBatchSize, int threadPoolSize, int queueCapacity,
+                                              int maxInFlightPerEventType, int maxInFlightPerConsumer, int limit) {
+        start(threadPoolSize, queueCapacity, maxInFlightPerEventType, maxInFlightPerConsumer, pollBatchSize);
+
+        poll();
+
+        assertThat(claimLimits()).containsExactly(limit);
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void virtualModeFallsBackToThePlatformPoolBeforeJava21() throws Exception {
+        start("virtual", 2, 3, 0, 256, 50);
+        signalEveryPoll();
+        claimUpTo(Integer.MAX_VALUE);
+
+        assertThat(scheduler.getCapacity()).isEqualTo(5);
+        poll();
+        awaitIdle();
+        verify(eventBusService, times(5)).markEventSuccess(any(), eq(CONSUMER_ID), any());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualModeIsUnboundedOnJava21() {
+        start("virtual", 2, 3, 0, 256, 50);
+
+        assertThat(scheduler.getCapacity()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(scheduler.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void unknownModesAreRejected() {
+        assertThatThrownBy(() -> start("carrier", 2, 3, 0, 256, 50))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("carrier");
+    }
+
+    @Test
+    void emptyPollsDoubleTheDelayUpToTheMaximum() {
+        start(4, 10, 0, 256, 50);
+
+        for (int i = 0; i < 5; i++) {
+            poll();
+        }
+
+        assertThat(delays).containsExactly(0L, 10L, 20L, 40L, 80L, 80L);
+        // only the first poll claims; the others had no signal and max-poll-delay had not passed
+        assertThat(claimLimits()).hasSize(1);
+    }
+
+    @Test
+    void publishingWakesTheLoopAndResetsTheBackoff() {
+        start(4, 10, 0, 256, 50);
+        for (int i = 0; i < 4; i++) {
+            poll();
+        }
+        assertThat(delays.get(delays.size() - 1)).isEqualTo(80L);
+
+        localEventBuffer.publish(List.of(event(99L)));
+
+        assertThat(delays.get(delays.size() - 1)).isZero();
+        assertThat(poll()).isEqualTo(10L);
+        assertThat(claimLimits()).hasSize(2);
+    }
+
+    private void start(int threadPoolSize, int queueCapacity, int maxInFlightPerEventType, int maxInFlightPerConsumer,
+                       int pollBatchSize) {
+        start("platform", threadPoolSize, queueCapacity, maxInFlightPerEventType, maxInFlightPerConsumer, pollBatchSize);
+    }
+
+    private void start(String mode, int threadPoolSize, int queueCapacity, int maxInFlightPerEventType,
+                       int maxInFlightPerConsumer, int pollBatchSize) {
+        scheduler = new EventBusScheduler(workerRegistry, eventBusService, mock(IIdempotencyService.class),
+            localEventBuffer, eventSignal, new EventBusMeters(new SimpleMeterRegistry()), threadPoolSize, queueCapacity,
+            maxInFlightPerEventType, maxInFlightPerConsumer, mode, pollBatchSize, 10, 80, true, poller);
+        scheduler.processEvents();
+    }
+
+    // A new sequence on every poll, so no poll skips its claim for lack of a signal
+    private void signalEveryPoll() {
+        AtomicLong sequence = new AtomicLong();
+        when(eventSignal.currentSequence(TYPE)).thenAnswer(invocation -> sequence.incrementAndGet());
+    }
+
+    // The first claim returns at most firstClaim events, later ones as many as they ask for
+    private void claimUpTo(int firstClaim) {
+        AtomicInteger claims = new AtomicInteger();
+        when(eventBusService.claimBatch(eq(TYPE), eq(CONSUMER_ID), anyInt(), any())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(2);
+            return claimed(claims.getAndIncrement() == 0 ? Math.min(limit, firstClaim) : limit);
+        });
+    }
+
+    // Runs the poll scheduled last and returns the delay it scheduled next
+    private long poll() {
+        scheduled.removeLast().run();
+        return delays.get(delays.size() - 1);
+    }
+
+    private List<Integer> claimLimits() {
+        ArgumentCaptor<Integer> limits = ArgumentCaptor.forClass(Integer.class);
+        verify(eventBusService, atLeastOnce()).claimBatch(eq(TYPE), eq(CONSUMER_ID), limits.capture(), any());
+        return limits.getAllValues();
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(scheduler.getInFlight()).isZero();
+    }
+
+    private List<ClaimedEvent> claimed(int count) {
+        return LongStream.range(0, count)
+            .map(i -> nextEventId.incrementAndGet())
+            .mapToObj(id -> new ClaimedEvent(id, "uuid-" + id, TYPE, 1, null, null, null, Instant.now()))
+            .toList();
+    }
+
+    private static WorkersEvent event(Long id) {
+        WorkersEvent event = new WorkersEvent();
+        event.setId(id);
+        event.setEventUuid("uuid-" + id);
+        event.setEventType(TYPE);
+        return event;
+    }
+}
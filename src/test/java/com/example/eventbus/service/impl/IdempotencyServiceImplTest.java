@@ -0,0 +1,64 @@
+package com.example.eventbus.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.eventbus.domain.EventConsumption;
+import com.example.eventbus.domain.EventStatus;
+import com.example.eventbus.domain.repository.EventConsumptionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyServiceImplTest {
+
+    private final IdempotencyServiceImpl idempotencyService = new IdempotencyServiceImpl(null, new ObjectMapper(), false, 0);
+
+    @Test
+    void failedResultHashLeavesLaterKeysAndHashesIntact() {
+        String hash = idempotencyService.calculateResultHash(Map.of("rows", 3));
+
+        assertThatThrownBy(() -> idempotencyService.calculateResultHash(new FailingResult()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        // SHA-256 of "abc-1"
+        assertThat(idempotencyService.generateIdempotencyKey("abc", 1L))
+            .isEqualTo("65397a5f96c8faed6bed9b822eb437bf8d75b866ec66fd795b55139b2acba2c5");
+        assertThat(idempotencyService.calculateResultHash(Map.of("rows", 3))).isEqualTo(hash);
+    }
+
+    @Test
+    void onlyClaimedChecksTrustTheFilterOfKeysThatSucceededHere() {
+        EventConsumptionRepository repository = mock(EventConsumptionRepository.class);
+        IdempotencyServiceImpl filtered = new IdempotencyServiceImpl(repository, new ObjectMapper(), true, 1000);
+        String key = filtered.generateIdempotencyKey("abc", 1L);
+        EventConsumption succeededElsewhere = new EventConsumption();
+        succeededElsewhere.setStatus(EventStatus.SUCCESS);
+        when(repository.findByIdempotencyKey(key)).thenReturn(Optional.of(succeededElsewhere));
+
+        assertThat(filtered.isClaimedAlreadyProcessed(key)).isFalse();
+        verify(repository, never()).findByIdempotencyKey(key);
+        assertThat(filtered.isAlreadyProcessed(key)).isTrue();
+
+        filtered.rememberSucceeded(List.of(key));
+        assertThat(filtered.isClaimedAlreadyProcessed(key)).isTrue();
+    }
+
+    // The first property is written before the getter throws, so the digest has already seen part of the result
+    static class FailingResult {
+
+        public String getA() {
+            return "partial";
+        }
+
+        public String getB() {
+            throw new IllegalStateException("result not available");
+        }
+    }
+}
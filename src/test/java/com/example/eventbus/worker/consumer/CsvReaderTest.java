@@ -0,0 +1,61 @@
+package com.example.eventbus.worker.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepSeparatorsLineBreaksAndQuotes() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+            "id,comment\r\n1,\"a, b\"\r\n2,\"line\r\nbreak\"\n\n3,\"say \"\"hi\"\"\"\r4,\n"));
+
+        assertThat(rows(csv)).containsExactly(
+            List.of("id", "comment"),
+            List.of("1", "a, b"),
+            List.of("2", "line\r\nbreak"),
+            List.of("3", "say \"hi\""),
+            List.of("4", ""));
+        assertThat(csv.getRecordNumber()).isEqualTo(5);
+    }
+
+    @Test
+    void rowsLongerThanTheReadBufferDecodeFromByteBuffers() throws IOException {
+        String longValue = "\u00e9".repeat(20_000);
+        CsvReader csv = new CsvReader(ByteBuffer.wrap(("id,value\n1," + longValue + "\n2,x")
+            .getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(rows(csv)).containsExactly(List.of("id", "value"), List.of("1", longValue), List.of("2", "x"));
+    }
+
+    @Test
+    void malformedQuotingIsRejected() {
+        assertThatThrownBy(() -> rows(new CsvReader(new StringReader("id\n\"1"))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("record 2");
+        assertThatThrownBy(() -> rows(new CsvReader(new StringReader("id\n\"1\"x"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> rows(new CsvReader(new StringReader("id\n1\"x"))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<List<String>> rows(CsvReader csv) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        while (csv.next()) {
+            List<String> row = new ArrayList<>();
+            for (int column = 0; column < csv.getColumnCount(); column++) {
+                row.add(csv.get(column));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}